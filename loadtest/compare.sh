@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# Runs loadtest/reports.js against the default platform thread pool and the virtual-thread profile,
+# one after the other on the same machine, and prints the headline numbers of each run.
+# Needs k6, curl and jq on the PATH and a Java 21 toolchain for the virtual run.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+mkdir -p build/loadtest
+
+run() {
+    local mode=$1; shift
+    ./gradlew -q bootRun "$@" > "build/loadtest/app-${mode}.log" 2>&1 &
+    local app=$!
+    trap 'kill $app 2>/dev/null || true' EXIT
+    until curl -sf http://localhost:8080/actuator/health > /dev/null; do
+        kill -0 $app 2>/dev/null || { echo "app failed to start, see build/loadtest/app-${mode}.log"; exit 1; }
+        sleep 2
+    done
+    k6 run -q -e MODE="$mode" loadtest/reports.js || true
+    kill $app; wait $app 2>/dev/null || true
+    trap - EXIT
+}
+
+run platform -PruntimeJava=21
+run virtual -PruntimeJava=21 --args='--spring.profiles.active=virtual'
+
+for mode in platform virtual; do
+    jq -r --arg mode "$mode" '"\($mode): \(.metrics.http_reqs.values.rate | floor) req/s, " +
+        "lookup p95 \(.metrics["http_req_duration{scenario:lookups}"].values["p(95)"] | floor) ms, " +
+        "upload p95 \(.metrics["http_req_duration{scenario:uploads}"].values["p(95)"] | floor) ms, " +
+        "failed \(.metrics.http_req_failed.values.rate * 100 | floor)%"' "build/loadtest/summary-${mode}.json"
+done
@@ -0,0 +1,82 @@
+// k6 load test for the upload and lookup paths.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e MODE=platform loadtest/reports.js
+//
+// Uploads arrive at UPLOAD_RATE/s while LOOKUP_VUS clinicians page and search reports without think
+// time. compare.sh runs it against both thread modes and keeps each summary in build/loadtest.
+import http from 'k6/http';
+import encoding from 'k6/encoding';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const MODE = __ENV.MODE || 'unknown';
+const DURATION = __ENV.DURATION || '2m';
+const pdf = open('../test.pdf', 'b');
+
+const auth = (user, password) => ({ Authorization: 'Basic ' + encoding.b64encode(`${user}:${password}`) });
+const DIAGNOST = auth('diagnost', 'diagnost123');
+const DOCTOR = auth('doctor', 'doctor123');
+
+export const options = {
+    scenarios: {
+        uploads: {
+            executor: 'constant-arrival-rate',
+            exec: 'upload',
+            rate: Number(__ENV.UPLOAD_RATE || 50),
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 100,
+            maxVUs: Number(__ENV.MAX_UPLOAD_VUS || 1000),
+        },
+        lookups: {
+            executor: 'constant-vus',
+            exec: 'lookup',
+            vus: Number(__ENV.LOOKUP_VUS || 200),
+            duration: DURATION,
+        },
+    },
+    thresholds: {
+        'http_req_failed{scenario:lookups}': ['rate<0.01'],
+        'http_req_duration{scenario:lookups}': ['p(95)<500'],
+        'http_req_duration{scenario:uploads}': ['p(95)<5000'],
+    },
+};
+
+// A trailing PDF comment changes the checksum, so every upload is parsed rather than deduplicated
+function uniquePdf() {
+    const suffix = `\n% ${__VU}-${__ITER}-${Math.random()}\n`;
+    const bytes = new Uint8Array(pdf.byteLength + suffix.length);
+    bytes.set(new Uint8Array(pdf), 0);
+    for (let i = 0; i < suffix.length; i++) {
+        bytes[pdf.byteLength + i] = suffix.charCodeAt(i);
+    }
+    return bytes.buffer;
+}
+
+function patientId() {
+    let id = String(1 + Math.floor(Math.random() * 9));
+    while (id.length < 12) {
+        id += Math.floor(Math.random() * 10);
+    }
+    return id;
+}
+
+export function upload() {
+    const res = http.post(`${BASE_URL}/api/reports/upload`, {
+        file: http.file(uniquePdf(), 'load.pdf', 'application/pdf'),
+        patientId: patientId(),
+        reportType: 'LOADTEST',
+    }, { headers: DIAGNOST, tags: { name: 'upload' } });
+    check(res, { 'upload ok': r => r.status === 200 });
+}
+
+export function lookup() {
+    const list = http.get(`${BASE_URL}/api/reports?limit=20`, { headers: DOCTOR, tags: { name: 'list' } });
+    check(list, { 'list ok': r => r.status === 200 });
+    const search = http.get(`${BASE_URL}/api/reports/search?q=report&limit=10`, { headers: DOCTOR, tags: { name: 'search' } });
+    check(search, { 'search ok': r => r.status === 200 });
+}
+
+export function handleSummary(data) {
+    return { [`build/loadtest/summary-${MODE}.json`]: JSON.stringify(data, null, 2) };
+}
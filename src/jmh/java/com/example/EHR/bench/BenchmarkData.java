@@ -0,0 +1,68 @@
+package com.example.EHR.bench;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Deterministic report-like inputs shared by the benchmarks.
+ */
+public final class BenchmarkData {
+
+    private static final String[] LINES = {
+            "Patient reviewed in OPD \u2013 follow-up visit",
+            "Vitals: BP 128/82 mmHg, Pulse 76 bpm, Temp 98.6",
+            "Fasting glucose: 102 mg/dL\tHbA1c: 6.9%",
+            "Hemoglobin 13.5 g/dL   Total cholesterol 180 mg/dL",
+            "Impression:  no acute findings \u2014 continue current medication\r",
+    };
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Report text of roughly {@code targetChars} characters built from typical lab and vitals lines.
+     */
+    public static String reportText(int targetChars) {
+        StringBuilder sb = new StringBuilder(targetChars + 128);
+        int i = 0;
+        while (sb.length() < targetChars) {
+            sb.append(LINES[i++ % LINES.length]).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes a PDF with {@code pages} pages of report lines to a temp file.
+     */
+    public static Path reportPdf(int pages) throws IOException {
+        Path target = Files.createTempFile("ehr-bench-" + pages + "p-", ".pdf");
+        target.toFile().deleteOnExit();
+        try (PDDocument doc = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int p = 0; p < pages; p++) {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(font, 10);
+                    cs.newLineAtOffset(50, 740);
+                    for (int line = 0; line < 50; line++) {
+                        // Standard 14 fonts cannot encode the dash/control characters used in reportText
+                        cs.showText("Page " + (p + 1) + " - Vitals: BP 128/82 mmHg, Pulse 76 bpm; Fasting glucose 102 mg/dL");
+                        cs.newLineAtOffset(0, -14);
+                    }
+                    cs.endText();
+                }
+            }
+            doc.save(target.toFile());
+        }
+        return target;
+    }
+}
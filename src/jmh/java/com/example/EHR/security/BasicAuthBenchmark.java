@@ -0,0 +1,56 @@
+package com.example.EHR.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authentications per second for a Basic auth request, with 8 request threads: the plain cost-12 BCrypt
+ * provider against the same provider behind {@link CachingAuthenticationProvider}. Each op is what one
+ * API call pays before reaching the controller.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(8)
+public class BasicAuthBenchmark {
+
+    private DaoAuthenticationProvider bcrypt;
+    private CachingAuthenticationProvider cached;
+
+    @Setup
+    public void setup() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(
+                User.withUsername("doctor").password(encoder.encode("doctor123")).roles("DOCTOR").build());
+        bcrypt = new DaoAuthenticationProvider();
+        bcrypt.setUserDetailsService(users);
+        bcrypt.setPasswordEncoder(encoder);
+        cached = new CachingAuthenticationProvider(bcrypt, users, Duration.ofMinutes(5), 10_000);
+        cached.authenticate(login());
+    }
+
+    private static Authentication login() {
+        return UsernamePasswordAuthenticationToken.unauthenticated("doctor", "doctor123");
+    }
+
+    @Benchmark
+    public Authentication bcryptAuthenticate() {
+        return bcrypt.authenticate(login());
+    }
+
+    @Benchmark
+    public Authentication cachedAuthenticate() {
+        return cached.authenticate(login());
+    }
+}
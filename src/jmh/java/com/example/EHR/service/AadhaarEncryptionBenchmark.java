@@ -0,0 +1,139 @@
+package com.example.EHR.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the pooled {@link AadhaarEncryptionService} against the previous per-call
+ * {@code getInstance} implementation, with 8 threads hitting one shared instance as request threads do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class AadhaarEncryptionBenchmark {
+
+    private static final String AADHAAR = "123456789012";
+
+    private AadhaarEncryptionService service;
+    private LegacyCrypto legacy;
+    private String ciphertext;
+    private String legacyCiphertext;
+
+    @Setup
+    public void setup() {
+        service = new AadhaarEncryptionService(null, null, 0);
+        legacy = new LegacyCrypto(new SecretKeySpec(Base64.getDecoder().decode(service.getEncodedKey()), "AES"));
+        ciphertext = service.encrypt(AADHAAR);
+        // The service now writes key-versioned ciphertexts, which the legacy code cannot parse
+        legacyCiphertext = legacy.encrypt(AADHAAR);
+    }
+
+    @Benchmark
+    public String pooledEncrypt() {
+        return service.encrypt(AADHAAR);
+    }
+
+    @Benchmark
+    public String legacyEncrypt() throws Exception {
+        return legacy.encrypt(AADHAAR);
+    }
+
+    @Benchmark
+    public String pooledDecrypt() {
+        return service.decrypt(ciphertext);
+    }
+
+    @Benchmark
+    public String legacyDecrypt() throws Exception {
+        return legacy.decrypt(legacyCiphertext);
+    }
+
+    @Benchmark
+    public String pooledHash() {
+        return service.hashAadhaar(AADHAAR);
+    }
+
+    @Benchmark
+    public String legacyHash() throws Exception {
+        return legacy.hash(AADHAAR);
+    }
+
+    @Benchmark
+    public String pooledMask() {
+        return service.maskAadhaar(AADHAAR);
+    }
+
+    @Benchmark
+    public String legacyMask() {
+        return legacy.mask(AADHAAR);
+    }
+
+    /**
+     * The implementation this service replaced: a new Cipher/MessageDigest and a regex match on every call.
+     */
+    static final class LegacyCrypto {
+
+        private final SecretKey secretKey;
+        private final SecureRandom secureRandom = new SecureRandom();
+
+        LegacyCrypto(SecretKey secretKey) {
+            this.secretKey = secretKey;
+        }
+
+        String encrypt(String aadhaar) throws Exception {
+            if (!aadhaar.matches("\\d{12}")) {
+                throw new IllegalArgumentException();
+            }
+            byte[] iv = new byte[12];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(128, iv));
+            byte[] ct = cipher.doFinal(aadhaar.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.allocate(iv.length + ct.length);
+            buffer.put(iv);
+            buffer.put(ct);
+            return Base64.getEncoder().encodeToString(buffer.array());
+        }
+
+        String decrypt(String encrypted) throws Exception {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encrypted));
+            byte[] iv = new byte[12];
+            buffer.get(iv);
+            byte[] ct = new byte[buffer.remaining()];
+            buffer.get(ct);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(128, iv));
+            return new String(cipher.doFinal(ct), StandardCharsets.UTF_8);
+        }
+
+        String hash(String aadhaar) throws Exception {
+            if (!aadhaar.matches("\\d{12}")) {
+                throw new IllegalArgumentException();
+            }
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(aadhaar.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        String mask(String aadhaar) {
+            if (!aadhaar.matches("\\d{12}")) {
+                throw new IllegalArgumentException();
+            }
+            return "XXXX-XXXX-" + aadhaar.substring(8);
+        }
+    }
+}
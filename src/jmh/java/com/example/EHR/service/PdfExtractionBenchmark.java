@@ -0,0 +1,55 @@
+package com.example.EHR.service;
+
+import com.example.EHR.bench.BenchmarkData;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The upload extraction path: open the spooled file with PDFBox and strip its text, for the bundled
+ * sample PDF and generated medium and large reports, sequentially and with parallel page ranges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class PdfExtractionBenchmark {
+
+    /** "sample" is test.pdf from the project root; numbers are generated page counts. */
+    @Param({"sample", "20", "300"})
+    private String document;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private File source;
+    private PdfTextExtractor extractor;
+
+    @Setup
+    public void setup() throws IOException {
+        source = "sample".equals(document)
+                ? new File(System.getProperty("ehr.samplePdf", "test.pdf"))
+                : BenchmarkData.reportPdf(Integer.parseInt(document)).toFile();
+        extractor = new PdfTextExtractor(parallel, 64, 16, Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        extractor.shutdown();
+    }
+
+    @Benchmark
+    public String loadAndExtract() throws IOException {
+        try (PDDocument doc = Loader.loadPDF(new RandomAccessReadBufferedFile(source))) {
+            return extractor.extractText(doc, source);
+        }
+    }
+}
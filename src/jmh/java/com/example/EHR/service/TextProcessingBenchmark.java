@@ -0,0 +1,88 @@
+package com.example.EHR.service;
+
+import com.example.EHR.bench.BenchmarkData;
+import com.example.EHR.model.Observation;
+import com.example.EHR.text.NormalizingWriter;
+import com.example.EHR.text.TextCodec;
+import com.example.EHR.text.TextNormalizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-upload text work: normalization of the extracted text, observation extraction over it, and the
+ * encoding the text is stored with (decoded again whenever a report's text is read).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextProcessingBenchmark {
+
+    @Param({"4096", "262144", "4194304"})
+    private int textChars;
+
+    private String rawText;
+    private String normalizedText;
+    private byte[] encodedText;
+    private ObservationExtractionService observationService;
+
+    @Setup
+    public void setup() {
+        rawText = BenchmarkData.reportText(textChars);
+        normalizedText = TextNormalizer.normalize(rawText);
+        encodedText = TextCodec.encode(rawText);
+        observationService = new ObservationExtractionService();
+    }
+
+    @Benchmark
+    public String normalizeText() {
+        return TextNormalizer.normalize(rawText);
+    }
+
+    /**
+     * What ingest does now: raw and normalized text built in one pass as the stripper writes 4 KB chunks.
+     */
+    @Benchmark
+    public void streamNormalize(Blackhole bh) {
+        NormalizingWriter writer = new NormalizingWriter(true, rawText.length());
+        for (int i = 0; i < rawText.length(); i += 4096) {
+            writer.write(rawText, i, Math.min(4096, rawText.length() - i));
+        }
+        bh.consume(writer.getRawText());
+        bh.consume(writer.getNormalizedText());
+    }
+
+    /**
+     * The replace/replaceAll chain normalization used before.
+     */
+    @Benchmark
+    public String legacyNormalizeText() {
+        return rawText.replace('\u2013', '-')
+                .replace('\u2014', '-')
+                .replace('\u2212', '-')
+                .replace('\r', ' ')
+                .replace('\t', ' ')
+                .replaceAll("[ ]+", " ")
+                .trim();
+    }
+
+    @Benchmark
+    public List<Observation> extractObservations() {
+        return observationService.extract(normalizedText);
+    }
+
+    @Benchmark
+    public byte[] encodeText() {
+        return TextCodec.encode(rawText);
+    }
+
+    @Benchmark
+    public String decodeText() {
+        return TextCodec.decode(encodedText);
+    }
+}
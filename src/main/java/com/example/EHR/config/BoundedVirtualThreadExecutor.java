@@ -0,0 +1,49 @@
+package com.example.EHR.config;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs each task on its own virtual thread, admitting at most {@code maxInFlight} tasks at a time. Like
+ * the bounded platform pool it replaces, it rejects work beyond that instead of queueing without limit,
+ * so callers keep their {@link RejectedExecutionException} back-pressure path.
+ */
+final class BoundedVirtualThreadExecutor implements TaskExecutor, AutoCloseable {
+
+    private final SimpleAsyncTaskExecutor delegate;
+    private final Semaphore admitted;
+
+    BoundedVirtualThreadExecutor(String threadNamePrefix, int maxInFlight, long terminationTimeoutMillis) {
+        this.delegate = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        this.delegate.setVirtualThreads(true);
+        this.delegate.setTaskTerminationTimeout(terminationTimeoutMillis);
+        this.admitted = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            throw new RejectedExecutionException("Extraction capacity exhausted");
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    admitted.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            admitted.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
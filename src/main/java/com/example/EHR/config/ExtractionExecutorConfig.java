@@ -0,0 +1,46 @@
+package com.example.EHR.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExtractionExecutorConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractionExecutorConfig.class);
+
+    /**
+     * Bounded pool for PDF extraction work. Submissions beyond the queue capacity are rejected
+     * instead of piling up behind a slow parse.
+     * <p>
+     * With {@code spring.threads.virtual.enabled} on a Java 21+ runtime, each task gets a virtual thread
+     * instead and up to workers + queue capacity tasks are admitted; the CPU-heavy part is then bounded
+     * by {@code PdfParseLimiter} rather than by the pool size.
+     */
+    @Bean
+    public TaskExecutor extractionExecutor(
+            @Value("${app.extraction.workers:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int workers,
+            @Value("${app.extraction.queue-capacity:100}") int queueCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            if (Runtime.version().feature() >= 21) {
+                log.info("Extraction runs on virtual threads");
+                return new BoundedVirtualThreadExecutor("extraction-", workers + queueCapacity, 30_000);
+            }
+            log.warn("Virtual threads need Java 21+ (running on {}), extraction stays on the platform pool",
+                    Runtime.version().feature());
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("extraction-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
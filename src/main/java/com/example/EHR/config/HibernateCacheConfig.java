@@ -0,0 +1,52 @@
+package com.example.EHR.config;
+
+import com.example.EHR.service.PatientListingCache;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.IOException;
+
+@Configuration
+public class HibernateCacheConfig {
+
+    /**
+     * Cache manager behind Hibernate's second-level cache regions, also holding the
+     * {@link PatientListingCache} region. It is created here rather than
+     * by Hibernate so the regions can be bound to metrics: {@code cache.gets} (hit/miss), {@code cache.puts},
+     * {@code cache.evictions} and {@code cache.removals}, tagged with the region name.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${app.cache.config:classpath:ehcache.xml}") Resource config)
+            throws IOException {
+        return Caching.getCachingProvider(EhcacheCachingProvider.class.getName())
+                .getCacheManager(config.getURI(), getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    @Bean
+    public MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String region : hibernateCacheManager.getCacheNames()) {
+                if (region.equals(PatientListingCache.REGION)) {
+                    // Shares the cache manager but is not a Hibernate region; PatientListingCache binds it
+                    continue;
+                }
+                JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(region), Tags.of("cacheManager", "hibernate"));
+            }
+        };
+    }
+}
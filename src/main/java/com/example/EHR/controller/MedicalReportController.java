@@ -1,40 +1,87 @@
 package com.example.EHR.controller;
 
+import com.example.EHR.controller.dto.BatchUploadItemResponse;
+import com.example.EHR.controller.dto.ExtractionJobResponse;
 import com.example.EHR.controller.dto.MedicalReportResponse;
+import com.example.EHR.controller.dto.MedicalReportSummaryResponse;
+import com.example.EHR.controller.dto.ReportPageResponse;
+import com.example.EHR.controller.dto.ReportPageTextResponse;
+import com.example.EHR.controller.dto.ReportPagesResponse;
+import com.example.EHR.controller.dto.ReportSearchHitResponse;
+import com.example.EHR.controller.dto.ReportSearchResponse;
+import com.example.EHR.controller.dto.ReportTextResponse;
+import com.example.EHR.model.BatchUploadResult;
+import com.example.EHR.model.CursorPage;
+import com.example.EHR.model.ExtractionJob;
 import com.example.EHR.model.MedicalReport;
+import com.example.EHR.model.MedicalReportSummary;
+import com.example.EHR.model.OriginalFile;
+import com.example.EHR.model.ReportContent;
+import com.example.EHR.model.ReportPage;
+import com.example.EHR.model.ReportSearchResult;
+import com.example.EHR.repository.ReportFilter;
 import com.example.EHR.service.AadhaarEncryptionService;
+import com.example.EHR.service.ExtractionJobService;
 import com.example.EHR.service.MedicalReportService;
+import com.example.EHR.service.ParseCapacityExceededException;
+import com.example.EHR.service.ReportExportService;
+import com.example.EHR.service.ReportSearchService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/reports")
 public class MedicalReportController {
 
+    private static final long MAX_JOB_WAIT_SECONDS = 25;
+
     private final MedicalReportService service;
+    private final ExtractionJobService jobService;
+    private final ReportExportService exportService;
+    private final ReportSearchService searchService;
     private final AadhaarEncryptionService aadhaarEncryptionService;
 
     public MedicalReportController(MedicalReportService service,
+                                   ExtractionJobService jobService,
+                                   ReportExportService exportService,
+                                   ReportSearchService searchService,
                                    AadhaarEncryptionService aadhaarEncryptionService) {
         this.service = service;
+        this.jobService = jobService;
+        this.exportService = exportService;
+        this.searchService = searchService;
         this.aadhaarEncryptionService = aadhaarEncryptionService;
     }
 
     @PostMapping(value = "/upload", consumes = "multipart/form-data")
-    public ResponseEntity<MedicalReportResponse> upload(@RequestPart("file") MultipartFile file,
-                                                        @RequestParam("patientId") String patientId,
-                                                        @RequestParam(value = "reportType", required = false) String reportType,
-                                                        @RequestParam(value = "reportDate", required = false) String reportDate,
-                                                        @RequestParam(value = "uploadedBy", required = false) String uploadedBy,
-                                                        Authentication auth) {
+    public ResponseEntity<?> upload(@RequestPart("file") MultipartFile file,
+                                    @RequestParam("patientId") String patientId,
+                                    @RequestParam(value = "reportType", required = false) String reportType,
+                                    @RequestParam(value = "reportDate", required = false) String reportDate,
+                                    @RequestParam(value = "uploadedBy", required = false) String uploadedBy,
+                                    @RequestParam(value = "async", defaultValue = "false") boolean async,
+                                    Authentication auth) {
         String uploader = auth != null ? auth.getName()
                 : (uploadedBy != null && !uploadedBy.isBlank() ? uploadedBy : "anonymous");
 
@@ -46,48 +93,231 @@ public class MedicalReportController {
             }
         }
 
+        if (async) {
+            try {
+                ExtractionJob job = jobService.submit(file, uploader, patientId, reportType, date);
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/reports/jobs/" + job.getId()))
+                        .body(toJobResponse(job));
+            } catch (RejectedExecutionException e) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(Map.of("error", "Extraction queue is full, retry later"));
+            }
+        }
+
         MedicalReport saved = service.upload(file, uploader, patientId, reportType, date);
         return ResponseEntity.ok(toResponse(saved));
     }
 
-    @GetMapping
-    public ResponseEntity<List<MedicalReportResponse>> listAll() {
-        List<MedicalReportResponse> responses = service.listAll().stream()
-                .map(this::toResponse)
+    @PostMapping(value = "/upload/batch", consumes = "multipart/form-data")
+    public ResponseEntity<List<BatchUploadItemResponse>> uploadBatch(@RequestPart("files") List<MultipartFile> files,
+                                                                     @RequestParam("patientId") List<String> patientIds,
+                                                                     @RequestParam(value = "reportType", required = false) String reportType,
+                                                                     @RequestParam(value = "reportDate", required = false) String reportDate,
+                                                                     Authentication auth) {
+        String uploader = auth != null ? auth.getName() : "anonymous";
+        LocalDateTime date = null;
+        if (reportDate != null && !reportDate.isBlank()) {
+            try {
+                date = LocalDateTime.parse(reportDate);
+            } catch (DateTimeParseException ignored) {
+            }
+        }
+
+        List<BatchUploadItemResponse> responses = service.uploadBatch(files, uploader, patientIds, reportType, date).stream()
+                .map(this::toBatchItemResponse)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(responses);
     }
 
+    /**
+     * Job status. With {@code waitSeconds} the request is held (without a servlet thread) until the job
+     * finishes or the wait elapses, whichever comes first.
+     */
+    @GetMapping("/jobs/{jobId}")
+    public CompletableFuture<ResponseEntity<ExtractionJobResponse>> jobStatus(@PathVariable String jobId,
+                                                                              @RequestParam(value = "waitSeconds", defaultValue = "0") long waitSeconds,
+                                                                              Authentication auth) {
+        ExtractionJob job = jobService.find(jobId).orElse(null);
+        if (job == null || !(hasRole(auth, "ROLE_ADMIN") || job.getSubmittedBy().equals(auth.getName()))) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        if (job.isFinished() || waitSeconds <= 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(toJobResponse(job)));
+        }
+        return jobService.completion(job).copy()
+                .completeOnTimeout(job, Math.min(waitSeconds, MAX_JOB_WAIT_SECONDS), TimeUnit.SECONDS)
+                .thenApply(j -> ResponseEntity.ok(toJobResponse(j)));
+    }
+
+    @GetMapping
+    public ResponseEntity<ReportPageResponse> listAll(@RequestParam(value = "cursor", required = false) String cursor,
+                                                      @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                                      @RequestParam(value = "reportType", required = false) String reportType,
+                                                      @RequestParam(value = "uploadedBy", required = false) String uploadedBy,
+                                                      @RequestParam(value = "reportDateFrom", required = false)
+                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime reportDateFrom,
+                                                      @RequestParam(value = "reportDateTo", required = false)
+                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime reportDateTo) {
+        ReportFilter filter = toFilter(reportType, uploadedBy, reportDateFrom, reportDateTo);
+        return ResponseEntity.ok(toPageResponse(service.list(filter, cursor, limit)));
+    }
+
+    /**
+     * Streams every report (optionally only those uploaded after {@code since}) as NDJSON, one report per line.
+     * See {@link ReportExportService} for how to pick {@code since} so no report is missed.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "since", required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        StreamingResponseBody body = out -> exportService.exportNdjson(since, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * Ranked full-text search over report text. Terms are AND-ed; supports OR, NOT/-term, parentheses and
+     * "quoted phrases". Patients only ever match their own reports.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ReportSearchResponse> search(@RequestParam("q") String q,
+                                                       @RequestParam(value = "limit", defaultValue = "20") int limit,
+                                                       Authentication auth) {
+        String patientIdHash = null;
+        if (hasRole(auth, "ROLE_PATIENT")) {
+            if (!AadhaarEncryptionService.isValidAadhaar(auth.getName())) {
+                return ResponseEntity.ok(toSearchResponse(new ReportSearchResult(List.of(), 0)));
+            }
+            patientIdHash = aadhaarEncryptionService.hashAadhaar(auth.getName());
+        }
+        return ResponseEntity.ok(toSearchResponse(searchService.search(q, patientIdHash, limit)));
+    }
+
     @GetMapping("/search-by-aadhaar/{aadhaar}")
-    public ResponseEntity<List<MedicalReportResponse>> listByAadhaar(@PathVariable("aadhaar") String aadhaar,
-                                                                     Authentication auth) {
-        List<MedicalReportResponse> responses = service.listByPatientId(aadhaar).stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
-        if (responses.isEmpty()) {
+    public ResponseEntity<ReportPageResponse> listByAadhaar(@PathVariable("aadhaar") String aadhaar,
+                                                            @RequestParam(value = "cursor", required = false) String cursor,
+                                                            @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                                            Authentication auth) {
+        ReportPageResponse page = toPageResponse(service.listByPatientId(aadhaar, new ReportFilter(), cursor, limit));
+        if (page.getItems().isEmpty() && cursor == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(responses);
+        return ResponseEntity.ok(page);
     }
 
     @GetMapping("/{patientId}")
-    public ResponseEntity<List<MedicalReportResponse>> listByPatient(@PathVariable String patientId,
-                                                                     Authentication auth) {
+    public ResponseEntity<ReportPageResponse> listByPatient(@PathVariable String patientId,
+                                                            @RequestParam(value = "cursor", required = false) String cursor,
+                                                            @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                                            @RequestParam(value = "reportType", required = false) String reportType,
+                                                            @RequestParam(value = "uploadedBy", required = false) String uploadedBy,
+                                                            @RequestParam(value = "reportDateFrom", required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime reportDateFrom,
+                                                            @RequestParam(value = "reportDateTo", required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime reportDateTo,
+                                                            Authentication auth) {
         boolean isPatient = hasRole(auth, "ROLE_PATIENT");
         if (isPatient && !auth.getName().equals(patientId)) {
             return ResponseEntity.status(403).build();
         }
-        List<MedicalReportResponse> responses = service.listByPatientId(patientId).stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(responses);
+        ReportFilter filter = toFilter(reportType, uploadedBy, reportDateFrom, reportDateTo);
+        return ResponseEntity.ok(toPageResponse(service.listByPatientId(patientId, filter, cursor, limit)));
+    }
+
+    @GetMapping("/{id}/text")
+    public ResponseEntity<ReportTextResponse> text(@PathVariable Long id, Authentication auth) {
+        boolean isClinician = hasRole(auth, "ROLE_DOCTOR") || hasRole(auth, "ROLE_ADMIN");
+        boolean isPatientOwner = hasRole(auth, "ROLE_PATIENT") && service.isOwnedBy(id, auth.getName());
+        if (!(isClinician || isPatientOwner)) {
+            return ResponseEntity.status(403).build();
+        }
+
+        ReportContent content = service.findContent(id).orElse(null);
+        if (content == null) {
+            return ResponseEntity.notFound().build();
+        }
+        ReportTextResponse resp = new ReportTextResponse();
+        resp.setId(id);
+        resp.setPageCount(content.getPageCount());
+        resp.setExtractedText(content.getExtractedText());
+        resp.setNormalizedText(content.getNormalizedText());
+        return ResponseEntity.ok(resp);
+    }
+
+    @GetMapping("/{id}/pages/{n}")
+    public ResponseEntity<ReportPagesResponse> page(@PathVariable Long id, @PathVariable("n") int n, Authentication auth) {
+        return pages(id, n, n, auth);
+    }
+
+    /**
+     * Text of pages {@code from} to {@code to} (inclusive, 1-based), at most
+     * {@value MedicalReportService#MAX_PAGE_RANGE} per request. Only the requested pages are read.
+     */
+    @GetMapping("/{id}/pages")
+    public ResponseEntity<ReportPagesResponse> pages(@PathVariable Long id,
+                                                     @RequestParam(value = "from", defaultValue = "1") int from,
+                                                     @RequestParam(value = "to", required = false) Integer to,
+                                                     Authentication auth) {
+        boolean isClinician = hasRole(auth, "ROLE_DOCTOR") || hasRole(auth, "ROLE_ADMIN");
+        boolean isPatientOwner = hasRole(auth, "ROLE_PATIENT") && service.isOwnedBy(id, auth.getName());
+        if (!(isClinician || isPatientOwner)) {
+            return ResponseEntity.status(403).build();
+        }
+
+        Integer pageCount = service.findPageCount(id).orElse(null);
+        if (pageCount == null) {
+            return ResponseEntity.notFound().build();
+        }
+        int last = to != null ? to : Math.max(from, Math.min(pageCount, from + MedicalReportService.MAX_PAGE_RANGE - 1));
+        List<ReportPage> pages = service.getPages(id, from, last);
+        if (pages.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ReportPagesResponse resp = new ReportPagesResponse();
+        resp.setId(id);
+        resp.setPageCount(pageCount);
+        resp.setPages(pages.stream()
+                .map(page -> {
+                    ReportPageTextResponse item = new ReportPageTextResponse();
+                    item.setPageNumber(page.getPageNumber());
+                    item.setExtractedText(page.getText());
+                    item.setNormalizedText(page.getNormalizedText());
+                    return item;
+                })
+                .collect(Collectors.toList()));
+        return ResponseEntity.ok(resp);
+    }
+
+    /**
+     * The original PDF, with Range and ETag support. The checksum is the ETag since stored files never change.
+     */
+    @GetMapping("/{id}/file")
+    public void file(@PathVariable Long id, Authentication auth,
+                     HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean isClinician = hasRole(auth, "ROLE_DOCTOR") || hasRole(auth, "ROLE_ADMIN");
+        boolean isPatientOwner = hasRole(auth, "ROLE_PATIENT") && service.isOwnedBy(id, auth.getName());
+        if (!(isClinician || isPatientOwner)) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        OriginalFile file = service.findOriginalFile(id).orElse(null);
+        if (file == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        FileDownloads.send(file.getPath(), "\"" + file.getChecksum() + "\"", file.getFileName(),
+                MediaType.APPLICATION_PDF_VALUE, request, response);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> delete(@PathVariable Long id, Authentication auth) {
-        MedicalReport report = service.getById(id);
+        if (!service.exists(id)) {
+            return ResponseEntity.notFound().build();
+        }
         boolean isAdmin = hasRole(auth, "ROLE_ADMIN");
-        boolean isPatientOwner = hasRole(auth, "ROLE_PATIENT") && auth.getName().equals(report.getPatientId());
+        boolean isPatientOwner = hasRole(auth, "ROLE_PATIENT") && service.isOwnedBy(id, auth.getName());
 
         if (!(isAdmin || isPatientOwner)) {
             return ResponseEntity.status(403).build();
@@ -114,16 +344,100 @@ public class MedicalReportController {
         resp.setReportType(report.getReportType());
         resp.setReportDate(report.getReportDate());
 
-        if (report.getPatientId() != null) {
-            try {
-                String aadhaarPlain = aadhaarEncryptionService.decrypt(report.getPatientId());
-                String masked = aadhaarEncryptionService.maskAadhaar(aadhaarPlain);
-                resp.setMaskedAadhaar(masked);
-            } catch (RuntimeException e) {
-                resp.setMaskedAadhaar(null);
-            }
+        resp.setMaskedAadhaar(mask(report.getAadhaarLast4()));
+
+        return resp;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(ParseCapacityExceededException.class)
+    public ResponseEntity<Map<String, String>> overloaded(ParseCapacityExceededException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    private ReportFilter toFilter(String reportType, String uploadedBy, LocalDateTime reportDateFrom, LocalDateTime reportDateTo) {
+        ReportFilter filter = new ReportFilter();
+        filter.setReportType(reportType != null && !reportType.isBlank() ? reportType : null);
+        filter.setUploadedBy(uploadedBy != null && !uploadedBy.isBlank() ? uploadedBy : null);
+        filter.setReportDateFrom(reportDateFrom);
+        filter.setReportDateTo(reportDateTo);
+        return filter;
+    }
+
+    private ReportPageResponse toPageResponse(CursorPage<MedicalReportSummary> page) {
+        ReportPageResponse resp = new ReportPageResponse();
+        resp.setItems(page.getItems().stream()
+                .map(this::toSummaryResponse)
+                .collect(Collectors.toList()));
+        resp.setNextCursor(page.getNextCursor());
+        return resp;
+    }
+
+    private ReportSearchResponse toSearchResponse(ReportSearchResult result) {
+        ReportSearchResponse resp = new ReportSearchResponse();
+        resp.setTotalHits(result.getTotalHits());
+        resp.setHits(result.getHits().stream()
+                .map(hit -> {
+                    ReportSearchHitResponse item = new ReportSearchHitResponse();
+                    item.setScore(hit.getScore());
+                    item.setPages(hit.getPages());
+                    item.setReport(toSummaryResponse(hit.getReport()));
+                    return item;
+                })
+                .collect(Collectors.toList()));
+        return resp;
+    }
+
+    private MedicalReportSummaryResponse toSummaryResponse(MedicalReportSummary summary) {
+        MedicalReportSummaryResponse resp = new MedicalReportSummaryResponse();
+        resp.setId(summary.getId());
+        resp.setFileName(summary.getFileName());
+        resp.setOriginalFileName(summary.getOriginalFileName());
+        resp.setFileSize(summary.getFileSize());
+        resp.setMimeType(summary.getMimeType());
+        resp.setUploadedAt(summary.getUploadedAt());
+        resp.setUploadedBy(summary.getUploadedBy());
+        resp.setPageCount(summary.getPageCount());
+        resp.setReportType(summary.getReportType());
+        resp.setReportDate(summary.getReportDate());
+        resp.setMaskedAadhaar(mask(summary.getAadhaarLast4()));
+        return resp;
+    }
+
+    private String mask(String aadhaarLast4) {
+        return aadhaarLast4 != null ? aadhaarEncryptionService.maskLastFour(aadhaarLast4) : null;
+    }
+
+    private BatchUploadItemResponse toBatchItemResponse(BatchUploadResult result) {
+        BatchUploadItemResponse resp = new BatchUploadItemResponse();
+        resp.setFileName(result.getFileName());
+        resp.setStatus(result.isSuccess() ? "SAVED" : "FAILED");
+        resp.setError(result.getError());
+        if (result.isSuccess()) {
+            resp.setReport(toResponse(result.getReport()));
         }
+        return resp;
+    }
 
+    private ExtractionJobResponse toJobResponse(ExtractionJob job) {
+        ExtractionJobResponse resp = new ExtractionJobResponse();
+        resp.setJobId(job.getId());
+        resp.setStatus(job.getStatus().name());
+        resp.setSubmittedAt(job.getSubmittedAt());
+        resp.setFinishedAt(job.getFinishedAt());
+        resp.setError(job.getError());
+        if (job.getStatus() == ExtractionJob.Status.COMPLETED) {
+            // The report may have been deleted since the job finished; the job itself still completed
+            service.findById(job.getReportId()).ifPresentOrElse(
+                    report -> resp.setReport(toResponse(report)),
+                    () -> resp.setReportDeleted(true));
+        }
         return resp;
     }
 
@@ -0,0 +1,139 @@
+package com.example.EHR.controller;
+
+import com.example.EHR.controller.dto.ObservationResponse;
+import com.example.EHR.controller.dto.TrendStatsResponse;
+import com.example.EHR.controller.dto.VitalsTrendResponse;
+import com.example.EHR.model.Observation;
+import com.example.EHR.model.ReportObservation;
+import com.example.EHR.model.TrendStats;
+import com.example.EHR.model.VitalsTrend;
+import com.example.EHR.service.ObservationService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/observations")
+public class ObservationController {
+
+    private final ObservationService service;
+
+    public ObservationController(ObservationService service) {
+        this.service = service;
+    }
+
+    @GetMapping("/patient/{patientId}")
+    public ResponseEntity<List<ObservationResponse>> forPatient(@PathVariable String patientId,
+                                                                @RequestParam(value = "analyte", required = false) Observation.Type analyte,
+                                                                @RequestParam(value = "from", required = false)
+                                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                @RequestParam(value = "to", required = false)
+                                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                @RequestParam(value = "limit", defaultValue = "500") int limit,
+                                                                Authentication auth) {
+        if (hasRole(auth, "ROLE_PATIENT") && !auth.getName().equals(patientId)) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(toResponses(service.forPatient(patientId, analyte, from, to, limit)));
+    }
+
+    /**
+     * Aggregates over a window, optionally split into fixed-width buckets such as {@code P30D}.
+     */
+    @GetMapping("/patient/{patientId}/trend")
+    public ResponseEntity<VitalsTrendResponse> trend(@PathVariable String patientId,
+                                                     @RequestParam("analyte") Observation.Type analyte,
+                                                     @RequestParam(value = "from", required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                     @RequestParam(value = "to", required = false)
+                                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                     @RequestParam(value = "bucket", required = false) String bucket,
+                                                     Authentication auth) {
+        if (hasRole(auth, "ROLE_PATIENT") && !auth.getName().equals(patientId)) {
+            return ResponseEntity.status(403).build();
+        }
+        Duration bucketWidth = null;
+        if (bucket != null && !bucket.isBlank()) {
+            try {
+                bucketWidth = Duration.parse(bucket);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid bucket, expected an ISO-8601 duration such as P30D");
+            }
+        }
+        return ResponseEntity.ok(toTrendResponse(service.trend(patientId, analyte, from, to, bucketWidth)));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ObservationResponse>> forAnalyte(@RequestParam("analyte") Observation.Type analyte,
+                                                                @RequestParam(value = "min", required = false) Double min,
+                                                                @RequestParam(value = "max", required = false) Double max,
+                                                                @RequestParam(value = "from", required = false)
+                                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                @RequestParam(value = "to", required = false)
+                                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                @RequestParam(value = "limit", defaultValue = "500") int limit) {
+        return ResponseEntity.ok(toResponses(service.forAnalyte(analyte, min, max, from, to, limit)));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    private List<ObservationResponse> toResponses(List<ReportObservation> observations) {
+        return observations.stream().map(this::toResponse).collect(Collectors.toList());
+    }
+
+    private ObservationResponse toResponse(ReportObservation observation) {
+        ObservationResponse resp = new ObservationResponse();
+        // The report is a lazy proxy; reading its id does not load it
+        resp.setReportId(observation.getReport().getId());
+        resp.setAnalyte(observation.getAnalyte().name());
+        resp.setValue(observation.getValue());
+        resp.setSystolic(observation.getSystolic());
+        resp.setDiastolic(observation.getDiastolic());
+        resp.setUnit(observation.getUnit());
+        resp.setObservedAt(observation.getObservedAt());
+        return resp;
+    }
+
+    private VitalsTrendResponse toTrendResponse(VitalsTrend trend) {
+        VitalsTrendResponse resp = new VitalsTrendResponse();
+        resp.setAnalyte(trend.getAnalyte().name());
+        resp.setOverall(toStatsResponse(trend.getOverall()));
+        resp.setBuckets(trend.getBuckets().stream().map(this::toStatsResponse).collect(Collectors.toList()));
+        return resp;
+    }
+
+    private TrendStatsResponse toStatsResponse(TrendStats stats) {
+        TrendStatsResponse resp = new TrendStatsResponse();
+        resp.setStart(stats.getStart());
+        resp.setEnd(stats.getEnd());
+        resp.setCount(stats.getCount());
+        resp.setMin(stats.getMin());
+        resp.setMax(stats.getMax());
+        resp.setAvg(stats.getAvg());
+        resp.setLast(stats.getLast());
+        resp.setLastAt(stats.getLastAt());
+        return resp;
+    }
+
+    private boolean hasRole(Authentication auth, String role) {
+        if (auth == null) return false;
+        for (GrantedAuthority authority : auth.getAuthorities()) {
+            if (authority.getAuthority().equals(role)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
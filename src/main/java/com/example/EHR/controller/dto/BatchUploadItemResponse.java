@@ -0,0 +1,44 @@
+package com.example.EHR.controller.dto;
+
+public class BatchUploadItemResponse {
+
+    private String fileName;
+    private String status;
+    private String error;
+    private MedicalReportResponse report;
+
+    public BatchUploadItemResponse() {
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public MedicalReportResponse getReport() {
+        return report;
+    }
+
+    public void setReport(MedicalReportResponse report) {
+        this.report = report;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.EHR.controller.dto;
+
+import java.time.LocalDateTime;
+
+public class ExtractionJobResponse {
+
+    private String jobId;
+    private String status;
+    private LocalDateTime submittedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    private MedicalReportResponse report;
+    private boolean reportDeleted;
+
+    public ExtractionJobResponse() {
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public MedicalReportResponse getReport() {
+        return report;
+    }
+
+    public void setReport(MedicalReportResponse report) {
+        this.report = report;
+    }
+
+    public boolean isReportDeleted() {
+        return reportDeleted;
+    }
+
+    public void setReportDeleted(boolean reportDeleted) {
+        this.reportDeleted = reportDeleted;
+    }
+}
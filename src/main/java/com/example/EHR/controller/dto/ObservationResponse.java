@@ -0,0 +1,73 @@
+package com.example.EHR.controller.dto;
+
+import java.time.LocalDateTime;
+
+public class ObservationResponse {
+
+    private Long reportId;
+    private String analyte;
+    private double value;
+    private Integer systolic;
+    private Integer diastolic;
+    private String unit;
+    private LocalDateTime observedAt;
+
+    public ObservationResponse() {
+    }
+
+    public Long getReportId() {
+        return reportId;
+    }
+
+    public void setReportId(Long reportId) {
+        this.reportId = reportId;
+    }
+
+    public String getAnalyte() {
+        return analyte;
+    }
+
+    public void setAnalyte(String analyte) {
+        this.analyte = analyte;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public void setValue(double value) {
+        this.value = value;
+    }
+
+    public Integer getSystolic() {
+        return systolic;
+    }
+
+    public void setSystolic(Integer systolic) {
+        this.systolic = systolic;
+    }
+
+    public Integer getDiastolic() {
+        return diastolic;
+    }
+
+    public void setDiastolic(Integer diastolic) {
+        this.diastolic = diastolic;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    public LocalDateTime getObservedAt() {
+        return observedAt;
+    }
+
+    public void setObservedAt(LocalDateTime observedAt) {
+        this.observedAt = observedAt;
+    }
+}
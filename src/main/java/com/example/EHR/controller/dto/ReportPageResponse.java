@@ -0,0 +1,28 @@
+package com.example.EHR.controller.dto;
+
+import java.util.List;
+
+public class ReportPageResponse {
+
+    private List<MedicalReportSummaryResponse> items;
+    private String nextCursor;
+
+    public ReportPageResponse() {
+    }
+
+    public List<MedicalReportSummaryResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<MedicalReportSummaryResponse> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
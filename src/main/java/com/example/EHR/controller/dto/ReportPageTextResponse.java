@@ -0,0 +1,35 @@
+package com.example.EHR.controller.dto;
+
+public class ReportPageTextResponse {
+
+    private int pageNumber;
+    private String extractedText;
+    private String normalizedText;
+
+    public ReportPageTextResponse() {
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public void setPageNumber(int pageNumber) {
+        this.pageNumber = pageNumber;
+    }
+
+    public String getExtractedText() {
+        return extractedText;
+    }
+
+    public void setExtractedText(String extractedText) {
+        this.extractedText = extractedText;
+    }
+
+    public String getNormalizedText() {
+        return normalizedText;
+    }
+
+    public void setNormalizedText(String normalizedText) {
+        this.normalizedText = normalizedText;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.EHR.controller.dto;
+
+import java.util.List;
+
+public class ReportPagesResponse {
+
+    private Long id;
+    private Integer pageCount;
+    private List<ReportPageTextResponse> pages;
+
+    public ReportPagesResponse() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getPageCount() {
+        return pageCount;
+    }
+
+    public void setPageCount(Integer pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    public List<ReportPageTextResponse> getPages() {
+        return pages;
+    }
+
+    public void setPages(List<ReportPageTextResponse> pages) {
+        this.pages = pages;
+    }
+}
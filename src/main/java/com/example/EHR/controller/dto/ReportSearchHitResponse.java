@@ -0,0 +1,37 @@
+package com.example.EHR.controller.dto;
+
+import java.util.List;
+
+public class ReportSearchHitResponse {
+
+    private double score;
+    private List<Integer> pages;
+    private MedicalReportSummaryResponse report;
+
+    public ReportSearchHitResponse() {
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public List<Integer> getPages() {
+        return pages;
+    }
+
+    public void setPages(List<Integer> pages) {
+        this.pages = pages;
+    }
+
+    public MedicalReportSummaryResponse getReport() {
+        return report;
+    }
+
+    public void setReport(MedicalReportSummaryResponse report) {
+        this.report = report;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.EHR.controller.dto;
+
+import java.util.List;
+
+public class ReportSearchResponse {
+
+    private long totalHits;
+    private List<ReportSearchHitResponse> hits;
+
+    public ReportSearchResponse() {
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    public void setTotalHits(long totalHits) {
+        this.totalHits = totalHits;
+    }
+
+    public List<ReportSearchHitResponse> getHits() {
+        return hits;
+    }
+
+    public void setHits(List<ReportSearchHitResponse> hits) {
+        this.hits = hits;
+    }
+}
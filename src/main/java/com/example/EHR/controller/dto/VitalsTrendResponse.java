@@ -0,0 +1,37 @@
+package com.example.EHR.controller.dto;
+
+import java.util.List;
+
+public class VitalsTrendResponse {
+
+    private String analyte;
+    private TrendStatsResponse overall;
+    private List<TrendStatsResponse> buckets;
+
+    public VitalsTrendResponse() {
+    }
+
+    public String getAnalyte() {
+        return analyte;
+    }
+
+    public void setAnalyte(String analyte) {
+        this.analyte = analyte;
+    }
+
+    public TrendStatsResponse getOverall() {
+        return overall;
+    }
+
+    public void setOverall(TrendStatsResponse overall) {
+        this.overall = overall;
+    }
+
+    public List<TrendStatsResponse> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<TrendStatsResponse> buckets) {
+        this.buckets = buckets;
+    }
+}
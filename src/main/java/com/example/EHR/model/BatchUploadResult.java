@@ -0,0 +1,41 @@
+package com.example.EHR.model;
+
+/**
+ * Outcome of one file in a batch upload: either the saved report or the reason it was rejected.
+ */
+public class BatchUploadResult {
+
+    private final String fileName;
+    private final MedicalReport report;
+    private final String error;
+
+    private BatchUploadResult(String fileName, MedicalReport report, String error) {
+        this.fileName = fileName;
+        this.report = report;
+        this.error = error;
+    }
+
+    public static BatchUploadResult saved(String fileName, MedicalReport report) {
+        return new BatchUploadResult(fileName, report, null);
+    }
+
+    public static BatchUploadResult failed(String fileName, String error) {
+        return new BatchUploadResult(fileName, null, error);
+    }
+
+    public boolean isSuccess() {
+        return report != null;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public MedicalReport getReport() {
+        return report;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.EHR.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An asynchronous report extraction. The row is written before the upload is acknowledged and carries
+ * everything ingest needs, so a job queued or running when the process stops is picked up again on
+ * startup from its spooled file.
+ */
+@Entity
+@Table(name = "extraction_jobs", indexes = @Index(name = "idx_extraction_jobs_status", columnList = "status"))
+public class ExtractionJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Version
+    private Long version;
+
+    @Column(nullable = false)
+    private String submittedBy;
+
+    @Column(nullable = false)
+    private LocalDateTime submittedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.QUEUED;
+
+    @Column
+    private Long reportId;
+
+    @Column(length = MAX_ERROR_LENGTH)
+    private String error;
+
+    @Column
+    private LocalDateTime finishedAt;
+
+    // The spooled upload, kept in the job directory until the job finishes
+    @Column(nullable = false, length = 1024)
+    private String spoolPath;
+
+    @Column(nullable = false, length = 64)
+    private String checksum;
+
+    @Column(nullable = false)
+    private long fileSize;
+
+    @Column
+    private String originalFileName;
+
+    @Column
+    private String uploaderRole;
+
+    @Column(nullable = false)
+    private long spoolNanos;
+
+    // Encrypted Aadhaar, like MedicalReport.patientId; cleared once the job finishes
+    @Column(length = 512)
+    private String patientId;
+
+    @Column
+    private String reportType;
+
+    @Column
+    private LocalDateTime reportDate;
+
+    public ExtractionJob() {
+    }
+
+    public ExtractionJob(String id, String submittedBy) {
+        this.id = id;
+        this.submittedBy = submittedBy;
+        this.submittedAt = LocalDateTime.now();
+    }
+
+    public void markRunning() {
+        this.status = Status.RUNNING;
+    }
+
+    /**
+     * Puts a job interrupted by a restart back in the queue.
+     */
+    public void requeue() {
+        this.status = Status.QUEUED;
+    }
+
+    public void complete(Long reportId) {
+        this.reportId = reportId;
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.COMPLETED;
+        this.patientId = null;
+    }
+
+    public void fail(String error) {
+        this.error = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.FAILED;
+        this.patientId = null;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSubmittedBy() {
+        return submittedBy;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getReportId() {
+        return reportId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getSpoolPath() {
+        return spoolPath;
+    }
+
+    public void setSpoolPath(String spoolPath) {
+        this.spoolPath = spoolPath;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getOriginalFileName() {
+        return originalFileName;
+    }
+
+    public void setOriginalFileName(String originalFileName) {
+        this.originalFileName = originalFileName;
+    }
+
+    public String getUploaderRole() {
+        return uploaderRole;
+    }
+
+    public void setUploaderRole(String uploaderRole) {
+        this.uploaderRole = uploaderRole;
+    }
+
+    public long getSpoolNanos() {
+        return spoolNanos;
+    }
+
+    public void setSpoolNanos(long spoolNanos) {
+        this.spoolNanos = spoolNanos;
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+
+    public String getReportType() {
+        return reportType;
+    }
+
+    public void setReportType(String reportType) {
+        this.reportType = reportType;
+    }
+
+    public LocalDateTime getReportDate() {
+        return reportDate;
+    }
+
+    public void setReportDate(LocalDateTime reportDate) {
+        this.reportDate = reportDate;
+    }
+}
@@ -1,14 +1,31 @@
 package com.example.EHR.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "medical_reports")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// Updates write only the changed columns, so re-encrypting patientId cannot undo a concurrent aadhaarLast4 backfill
+@DynamicUpdate
+@Table(name = "medical_reports", indexes = {
+        @Index(name = "idx_medical_reports_uploaded", columnList = "uploaded_at, id"),
+        @Index(name = "idx_medical_reports_patient", columnList = "patient_id_hash, uploaded_at, id"),
+        @Index(name = "idx_medical_reports_type", columnList = "report_type, uploaded_at, id"),
+        @Index(name = "idx_medical_reports_uploader", columnList = "uploaded_by, uploaded_at, id"),
+        @Index(name = "idx_medical_reports_report_date", columnList = "report_date"),
+        @Index(name = "idx_medical_reports_checksum", columnList = "checksum")
+})
 public class MedicalReport {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medical_reports_seq")
+    @SequenceGenerator(name = "medical_reports_seq", sequenceName = "medical_reports_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -26,23 +43,17 @@ public class MedicalReport {
     @Column(nullable = false)
     private String checksum;
 
-    @Lob
-    @Column(nullable = false, columnDefinition = "TEXT")
-    private String extractedText;
-
-    @Lob
-    @Column(columnDefinition = "TEXT")
-    private String normalizedText;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "content_id", nullable = false)
+    private ReportContent content;
 
+    // Set when the row is inserted, not when the upload arrives, see stampUploadedAt
     @Column(nullable = false)
     private LocalDateTime uploadedAt;
 
     @Column
     private String uploadedBy;
 
-    @Column
-    private Integer pageCount;
-
     @Column
     private String patientId;
 
@@ -55,8 +66,14 @@ public class MedicalReport {
     @Column
     private String patientIdHash;
 
+    // Last four Aadhaar digits, kept so listings can show the masked form without decrypting patientId
+    @Column(length = 4)
+    private String aadhaarLast4;
+
+    @OneToMany(mappedBy = "report", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<ReportObservation> observations = new ArrayList<>();
+
     public MedicalReport() {
-        this.uploadedAt = LocalDateTime.now();
     }
 
     public Long getId() {
@@ -107,20 +124,20 @@ public class MedicalReport {
         this.checksum = checksum;
     }
 
-    public String getExtractedText() {
-        return extractedText;
+    public ReportContent getContent() {
+        return content;
     }
 
-    public void setExtractedText(String extractedText) {
-        this.extractedText = extractedText;
+    public void setContent(ReportContent content) {
+        this.content = content;
     }
 
-    public String getNormalizedText() {
-        return normalizedText;
+    public String getExtractedText() {
+        return content != null ? content.getExtractedText() : null;
     }
 
-    public void setNormalizedText(String normalizedText) {
-        this.normalizedText = normalizedText;
+    public String getNormalizedText() {
+        return content != null ? content.getNormalizedText() : null;
     }
 
     public LocalDateTime getUploadedAt() {
@@ -140,11 +157,7 @@ public class MedicalReport {
     }
 
     public Integer getPageCount() {
-        return pageCount;
-    }
-
-    public void setPageCount(Integer pageCount) {
-        this.pageCount = pageCount;
+        return content != null ? content.getPageCount() : null;
     }
 
     public String getPatientId() {
@@ -178,4 +191,27 @@ public class MedicalReport {
     public void setPatientIdHash(String patientIdHash) {
         this.patientIdHash = patientIdHash;
     }
+
+    public String getAadhaarLast4() {
+        return aadhaarLast4;
+    }
+
+    public void setAadhaarLast4(String aadhaarLast4) {
+        this.aadhaarLast4 = aadhaarLast4;
+    }
+
+    public List<ReportObservation> getObservations() {
+        return observations;
+    }
+
+    public void addObservation(Observation observation) {
+        observations.add(ReportObservation.of(this, observation));
+    }
+
+    // Stamped at insert, after extraction, so the export's uploadedAt watermark tracks when rows reach the
+    // table rather than when their uploads started
+    @PrePersist
+    void stampUploadedAt() {
+        uploadedAt = LocalDateTime.now();
+    }
 }
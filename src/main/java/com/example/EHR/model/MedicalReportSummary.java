@@ -0,0 +1,82 @@
+package com.example.EHR.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a report for listings. Built directly by JPQL constructor expressions so
+ * the text LOBs are never selected.
+ */
+public class MedicalReportSummary {
+
+    private final Long id;
+    private final String fileName;
+    private final String originalFileName;
+    private final Long fileSize;
+    private final String mimeType;
+    private final LocalDateTime uploadedAt;
+    private final String uploadedBy;
+    private final String reportType;
+    private final LocalDateTime reportDate;
+    private final Integer pageCount;
+    private final String aadhaarLast4;
+
+    public MedicalReportSummary(Long id, String fileName, String originalFileName, Long fileSize, String mimeType,
+                                LocalDateTime uploadedAt, String uploadedBy, String reportType,
+                                LocalDateTime reportDate, Integer pageCount, String aadhaarLast4) {
+        this.id = id;
+        this.fileName = fileName;
+        this.originalFileName = originalFileName;
+        this.fileSize = fileSize;
+        this.mimeType = mimeType;
+        this.uploadedAt = uploadedAt;
+        this.uploadedBy = uploadedBy;
+        this.reportType = reportType;
+        this.reportDate = reportDate;
+        this.pageCount = pageCount;
+        this.aadhaarLast4 = aadhaarLast4;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getOriginalFileName() {
+        return originalFileName;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public LocalDateTime getUploadedAt() {
+        return uploadedAt;
+    }
+
+    public String getUploadedBy() {
+        return uploadedBy;
+    }
+
+    public String getReportType() {
+        return reportType;
+    }
+
+    public LocalDateTime getReportDate() {
+        return reportDate;
+    }
+
+    public Integer getPageCount() {
+        return pageCount;
+    }
+
+    public String getAadhaarLast4() {
+        return aadhaarLast4;
+    }
+}
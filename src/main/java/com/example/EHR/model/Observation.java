@@ -1,31 +1,81 @@
 package com.example.EHR.model;
 
+/**
+ * A single measurement found in report text. Values are in the canonical unit for the type
+ * (mmol/L results are converted to mg/dL); blood pressure carries systolic/diastolic and uses the
+ * systolic reading as its value.
+ */
 public class Observation {
 
-    private String type;
-    private String value;
+    public enum Type {
+        BLOOD_PRESSURE,
+        HEART_RATE,
+        TEMPERATURE,
+        GLUCOSE,
+        HBA1C,
+        HEMOGLOBIN,
+        CHOLESTEROL
+    }
+
+    private Type type;
+    private double value;
+    private Integer systolic;
+    private Integer diastolic;
+    private String unit;
 
     public Observation() {
     }
 
-    public Observation(String type, String value) {
+    public Observation(Type type, double value, String unit) {
         this.type = type;
         this.value = value;
+        this.unit = unit;
+    }
+
+    public static Observation bloodPressure(int systolic, int diastolic) {
+        Observation observation = new Observation(Type.BLOOD_PRESSURE, systolic, "mmHg");
+        observation.setSystolic(systolic);
+        observation.setDiastolic(diastolic);
+        return observation;
     }
 
-    public String getType() {
+    public Type getType() {
         return type;
     }
 
-    public void setType(String type) {
+    public void setType(Type type) {
         this.type = type;
     }
 
-    public String getValue() {
+    public double getValue() {
         return value;
     }
 
-    public void setValue(String value) {
+    public void setValue(double value) {
         this.value = value;
     }
+
+    public Integer getSystolic() {
+        return systolic;
+    }
+
+    public void setSystolic(Integer systolic) {
+        this.systolic = systolic;
+    }
+
+    public Integer getDiastolic() {
+        return diastolic;
+    }
+
+    public void setDiastolic(Integer diastolic) {
+        this.diastolic = diastolic;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
 }
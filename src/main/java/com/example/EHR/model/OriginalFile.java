@@ -0,0 +1,31 @@
+package com.example.EHR.model;
+
+import java.nio.file.Path;
+
+/**
+ * An original uploaded PDF in the content store.
+ */
+public class OriginalFile {
+
+    private final Path path;
+    private final String checksum;
+    private final String fileName;
+
+    public OriginalFile(Path path, String checksum, String fileName) {
+        this.path = path;
+        this.checksum = checksum;
+        this.fileName = fileName;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+}
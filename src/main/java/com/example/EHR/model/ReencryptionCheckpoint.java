@@ -0,0 +1,78 @@
+package com.example.EHR.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of re-encrypting stored Aadhaar numbers under one target key. Written in the same transaction
+ * as each chunk of re-encrypted rows, so after a crash the job resumes right after the last committed row.
+ */
+@Entity
+@Table(name = "aadhaar_reencryption_checkpoints")
+public class ReencryptionCheckpoint {
+
+    @Id
+    private Integer keyId;
+
+    @Column(nullable = false)
+    private long lastReportId;
+
+    @Column(nullable = false)
+    private long reencrypted;
+
+    @Column(nullable = false)
+    private long failed;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column
+    private LocalDateTime completedAt;
+
+    public ReencryptionCheckpoint() {
+    }
+
+    public ReencryptionCheckpoint(int keyId) {
+        this.keyId = keyId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Records a committed chunk ending at {@code lastReportId}.
+     */
+    public void advance(long lastReportId, int reencrypted, int failed) {
+        this.lastReportId = lastReportId;
+        this.reencrypted += reencrypted;
+        this.failed += failed;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void complete() {
+        this.completedAt = LocalDateTime.now();
+        this.updatedAt = completedAt;
+    }
+
+    public Integer getKeyId() {
+        return keyId;
+    }
+
+    public long getLastReportId() {
+        return lastReportId;
+    }
+
+    public long getReencrypted() {
+        return reencrypted;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+}
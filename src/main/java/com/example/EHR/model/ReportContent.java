@@ -0,0 +1,226 @@
+package com.example.EHR.model;
+
+import com.example.EHR.text.TextCodec;
+import com.example.EHR.text.TextNormalizer;
+import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Extracted content of a PDF, keyed by the SHA-256 of its bytes. Reports uploaded with identical
+ * bytes share one row, so the text is extracted and stored only once.
+ * <p>
+ * Only the raw text is persisted, encoded with {@link TextCodec}; it is decoded on first access and the
+ * normalized text is derived from it on demand rather than stored alongside. When the page boundaries are
+ * known the text is stored once, split into {@link ReportPage} rows, so a page range reads and decodes only
+ * its own pages and the whole text is their concatenation. Otherwise it is stored here as one block. The
+ * boundaries are also kept as char offsets into the raw text so the search index can map matches to pages.
+ */
+@Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "report_contents",
+        uniqueConstraints = @UniqueConstraint(name = "uk_report_contents_checksum", columnNames = "checksum"))
+public class ReportContent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "report_contents_seq")
+    @SequenceGenerator(name = "report_contents_seq", sequenceName = "report_contents_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String checksum;
+
+    @Column(nullable = false)
+    private Long fileSize;
+
+    // Whole text as one block; null when it is stored per page
+    @Lob
+    @Column(name = "extracted_text")
+    private byte[] encodedText;
+
+    @Transient
+    private String extractedText;
+
+    @Transient
+    private String normalizedText;
+
+    @Column
+    private Integer pageCount;
+
+    // Varint-encoded deltas of the char offset at which each page ends
+    @Lob
+    @Column(name = "page_ends")
+    private byte[] encodedPageEnds;
+
+    // Loaded with the content, so the text can be assembled after the session is gone; batched when several
+    // contents are loaded together, as by the export and the search rebuild
+    @OneToMany(mappedBy = "content", cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
+    @OrderBy("pageNumber")
+    @BatchSize(size = 50)
+    private List<ReportPage> pages = new ArrayList<>();
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public ReportContent() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getExtractedText() {
+        if (extractedText == null) {
+            if (encodedText != null) {
+                extractedText = TextCodec.decode(encodedText);
+            } else if (!pages.isEmpty()) {
+                StringBuilder text = new StringBuilder();
+                pages.forEach(page -> text.append(page.getText()));
+                extractedText = text.toString();
+            }
+        }
+        return extractedText;
+    }
+
+    /**
+     * Sets the raw text. It is encoded when the content is persisted, as one block or, once
+     * {@link #setPageEnds} has split it, as pages.
+     */
+    public void setExtractedText(String extractedText) {
+        this.extractedText = extractedText;
+        this.normalizedText = null;
+        this.pages = new ArrayList<>();
+        this.encodedPageEnds = null;
+    }
+
+    /**
+     * Sets the raw text together with its already computed normalized form, which must equal
+     * {@code TextNormalizer.normalize(extractedText)}.
+     */
+    public void setExtractedText(String extractedText, String normalizedText) {
+        setExtractedText(extractedText);
+        this.normalizedText = normalizedText;
+    }
+
+    public String getNormalizedText() {
+        if (normalizedText == null) {
+            String raw = getExtractedText();
+            if (raw != null) {
+                normalizedText = TextNormalizer.normalize(raw);
+            }
+        }
+        return normalizedText;
+    }
+
+    public Integer getPageCount() {
+        return pageCount;
+    }
+
+    public void setPageCount(Integer pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    /**
+     * Char offsets into the raw text at which each page ends, or null if the pages were not recorded.
+     */
+    public int[] getPageEnds() {
+        if (encodedPageEnds == null) {
+            return null;
+        }
+        int[] ends = new int[encodedPageEnds.length];
+        int count = 0;
+        int offset = 0;
+        int delta = 0;
+        int shift = 0;
+        for (byte b : encodedPageEnds) {
+            delta |= (b & 0x7F) << shift;
+            if (b < 0) {
+                shift += 7;
+            } else {
+                offset += delta;
+                ends[count++] = offset;
+                delta = 0;
+                shift = 0;
+            }
+        }
+        return Arrays.copyOf(ends, count);
+    }
+
+    /**
+     * Splits the raw text into one {@link ReportPage} per page, persisted along with this content instead of
+     * the text as a whole. Ignored if the offsets do not describe the current text.
+     *
+     * @param pageEnds char offset into the raw text at which each page ends, as reported by the extractor
+     */
+    public void setPageEnds(int[] pageEnds) {
+        String raw = getExtractedText();
+        if (raw == null || pageEnds == null || pageEnds.length == 0 || pageEnds[pageEnds.length - 1] != raw.length()) {
+            return;
+        }
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(pageEnds.length * 2);
+        List<ReportPage> split = new ArrayList<>(pageEnds.length);
+        int start = 0;
+        for (int i = 0; i < pageEnds.length; i++) {
+            int end = pageEnds[i];
+            if (end < start) {
+                return;
+            }
+            int delta = end - start;
+            while (delta >= 0x80) {
+                encoded.write((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            encoded.write(delta);
+            split.add(new ReportPage(this, i + 1, raw.substring(start, end)));
+            start = end;
+        }
+        this.encodedPageEnds = encoded.toByteArray();
+        this.pages = split;
+    }
+
+    public List<ReportPage> getPages() {
+        return pages;
+    }
+
+    @PrePersist
+    void encodeText() {
+        String raw = getExtractedText();
+        encodedText = pages.isEmpty() && raw != null ? TextCodec.encode(raw) : null;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
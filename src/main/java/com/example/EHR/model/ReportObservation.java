@@ -0,0 +1,145 @@
+package com.example.EHR.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An observation extracted from a report at ingest. The patient hash and observation time are copied
+ * from the report so per-patient and per-analyte lookups are served from this table's indexes alone.
+ */
+@Entity
+@Table(name = "report_observations", indexes = {
+        @Index(name = "idx_report_observations_patient", columnList = "patient_id_hash, analyte, observed_at"),
+        @Index(name = "idx_report_observations_analyte", columnList = "analyte, observed_at, numeric_value"),
+        @Index(name = "idx_report_observations_report", columnList = "report_id")
+})
+public class ReportObservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "report_observations_seq")
+    @SequenceGenerator(name = "report_observations_seq", sequenceName = "report_observations_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "report_id", nullable = false)
+    private MedicalReport report;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Observation.Type analyte;
+
+    @Column(name = "numeric_value", nullable = false)
+    private double value;
+
+    @Column
+    private Integer systolic;
+
+    @Column
+    private Integer diastolic;
+
+    @Column(nullable = false, length = 16)
+    private String unit;
+
+    // Report date when known, otherwise the upload time
+    @Column(nullable = false)
+    private LocalDateTime observedAt;
+
+    @Column
+    private String patientIdHash;
+
+    public ReportObservation() {
+    }
+
+    public static ReportObservation of(MedicalReport report, Observation observation) {
+        ReportObservation row = new ReportObservation();
+        row.setReport(report);
+        row.setAnalyte(observation.getType());
+        row.setValue(observation.getValue());
+        row.setSystolic(observation.getSystolic());
+        row.setDiastolic(observation.getDiastolic());
+        row.setUnit(observation.getUnit());
+        row.setObservedAt(report.getReportDate());
+        row.setPatientIdHash(report.getPatientIdHash());
+        return row;
+    }
+
+    // Without a report date the upload time is used, which is only known once the report is inserted
+    @PrePersist
+    void defaultObservedAt() {
+        if (observedAt == null) {
+            observedAt = report.getUploadedAt();
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public MedicalReport getReport() {
+        return report;
+    }
+
+    public void setReport(MedicalReport report) {
+        this.report = report;
+    }
+
+    public Observation.Type getAnalyte() {
+        return analyte;
+    }
+
+    public void setAnalyte(Observation.Type analyte) {
+        this.analyte = analyte;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public void setValue(double value) {
+        this.value = value;
+    }
+
+    public Integer getSystolic() {
+        return systolic;
+    }
+
+    public void setSystolic(Integer systolic) {
+        this.systolic = systolic;
+    }
+
+    public Integer getDiastolic() {
+        return diastolic;
+    }
+
+    public void setDiastolic(Integer diastolic) {
+        this.diastolic = diastolic;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    public LocalDateTime getObservedAt() {
+        return observedAt;
+    }
+
+    public void setObservedAt(LocalDateTime observedAt) {
+        this.observedAt = observedAt;
+    }
+
+    public String getPatientIdHash() {
+        return patientIdHash;
+    }
+
+    public void setPatientIdHash(String patientIdHash) {
+        this.patientIdHash = patientIdHash;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.EHR.model;
+
+import com.example.EHR.text.TextCodec;
+import com.example.EHR.text.TextNormalizer;
+import jakarta.persistence.*;
+
+/**
+ * The raw text of one page of a {@link ReportContent}. When a report's pages are known they are the only stored
+ * copy of its text, so a page range is served without loading or decoding the whole document. Pages are
+ * numbered from 1; the unique index doubles as the range-scan index.
+ */
+@Entity
+@Table(name = "report_pages",
+        uniqueConstraints = @UniqueConstraint(name = "uk_report_pages_content_page", columnNames = {"content_id", "page_number"}))
+public class ReportPage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "report_pages_seq")
+    @SequenceGenerator(name = "report_pages_seq", sequenceName = "report_pages_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "content_id", nullable = false)
+    private ReportContent content;
+
+    @Column(name = "page_number", nullable = false)
+    private int pageNumber;
+
+    @Lob
+    @Column(name = "page_text", nullable = false)
+    private byte[] encodedText;
+
+    @Transient
+    private String text;
+
+    public ReportPage() {
+    }
+
+    public ReportPage(ReportContent content, int pageNumber, String text) {
+        this.content = content;
+        this.pageNumber = pageNumber;
+        setText(text);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public ReportContent getContent() {
+        return content;
+    }
+
+    public void setContent(ReportContent content) {
+        this.content = content;
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public void setPageNumber(int pageNumber) {
+        this.pageNumber = pageNumber;
+    }
+
+    public String getText() {
+        if (text == null && encodedText != null) {
+            text = TextCodec.decode(encodedText);
+        }
+        return text;
+    }
+
+    public void setText(String text) {
+        this.encodedText = TextCodec.encode(text);
+        this.text = text;
+    }
+
+    public String getNormalizedText() {
+        String raw = getText();
+        return raw != null ? TextNormalizer.normalize(raw) : null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.EHR.model;
+
+import java.util.List;
+
+/**
+ * A ranked full-text search match, with the pages the matched terms occur on when they are known.
+ */
+public class ReportSearchHit {
+
+    private final MedicalReportSummary report;
+    private final double score;
+    private final List<Integer> pages;
+
+    public ReportSearchHit(MedicalReportSummary report, double score) {
+        this(report, score, List.of());
+    }
+
+    public ReportSearchHit(MedicalReportSummary report, double score, List<Integer> pages) {
+        this.report = report;
+        this.score = score;
+        this.pages = List.copyOf(pages);
+    }
+
+    public MedicalReportSummary getReport() {
+        return report;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public List<Integer> getPages() {
+        return pages;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.EHR.model;
+
+import java.util.List;
+
+/**
+ * Top hits of a search, best first, with the total number of matching reports.
+ */
+public class ReportSearchResult {
+
+    private final List<ReportSearchHit> hits;
+    private final long totalHits;
+
+    public ReportSearchResult(List<ReportSearchHit> hits, long totalHits) {
+        this.hits = hits;
+        this.totalHits = totalHits;
+    }
+
+    public List<ReportSearchHit> getHits() {
+        return hits;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.EHR.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aggregates of one analyte over a time window. Value fields are null when the window has no points.
+ */
+public class TrendStats {
+
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final long count;
+    private final Double min;
+    private final Double max;
+    private final Double avg;
+    private final Double last;
+    private final LocalDateTime lastAt;
+
+    public TrendStats(LocalDateTime start, LocalDateTime end, long count, Double min, Double max, Double avg,
+                      Double last, LocalDateTime lastAt) {
+        this.start = start;
+        this.end = end;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.avg = avg;
+        this.last = last;
+        this.lastAt = lastAt;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public Double getAvg() {
+        return avg;
+    }
+
+    public Double getLast() {
+        return last;
+    }
+
+    public LocalDateTime getLastAt() {
+        return lastAt;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.EHR.model;
+
+import java.util.List;
+
+/**
+ * Trend of one analyte for a patient: aggregates over the whole window plus fixed-width buckets
+ * (empty when no bucket width was requested).
+ */
+public class VitalsTrend {
+
+    private final Observation.Type analyte;
+    private final TrendStats overall;
+    private final List<TrendStats> buckets;
+
+    public VitalsTrend(Observation.Type analyte, TrendStats overall, List<TrendStats> buckets) {
+        this.analyte = analyte;
+        this.overall = overall;
+        this.buckets = buckets;
+    }
+
+    public Observation.Type getAnalyte() {
+        return analyte;
+    }
+
+    public TrendStats getOverall() {
+        return overall;
+    }
+
+    public List<TrendStats> getBuckets() {
+        return buckets;
+    }
+}
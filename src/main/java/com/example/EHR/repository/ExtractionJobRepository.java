@@ -0,0 +1,34 @@
+package com.example.EHR.repository;
+
+import com.example.EHR.model.ExtractionJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ExtractionJobRepository extends JpaRepository<ExtractionJob, String> {
+
+    List<ExtractionJob> findByStatusInOrderBySubmittedAt(Collection<ExtractionJob.Status> statuses);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ExtractionJob j where j.finishedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Finished jobs no longer need the Aadhaar; rows finished before it was cleared on completion still hold it
+    @Modifying
+    @Transactional
+    @Query("update ExtractionJob j set j.patientId = null, j.version = j.version + 1 "
+            + "where j.finishedAt is not null and j.patientId is not null")
+    int clearPatientIdOfFinished();
+
+    @Query("select j.patientId from ExtractionJob j where j.finishedAt is null and j.patientId is not null")
+    List<String> findPatientIdsOfUnfinished();
+}
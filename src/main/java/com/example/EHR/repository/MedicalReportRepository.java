@@ -1,22 +1,98 @@
 package com.example.EHR.repository;
 
 import com.example.EHR.model.MedicalReport;
+import com.example.EHR.model.MedicalReportSummary;
+import com.example.EHR.model.ReportContent;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface MedicalReportRepository extends JpaRepository<MedicalReport, Long> {
+public interface MedicalReportRepository extends JpaRepository<MedicalReport, Long>, MedicalReportRepositoryCustom {
 
     List<MedicalReport> findByPatientId(String patientId);
 
-    Optional<MedicalReport> findByChecksum(String checksum);
+    List<MedicalReport> findByChecksum(String checksum);
+
+    boolean existsByChecksum(String checksum);
 
     List<MedicalReport> findByReportType(String reportType);
 
     List<MedicalReport> findByUploadedBy(String uploadedBy);
+
     List<MedicalReport> findByPatientIdHash(String patientIdHash);
 
+    @Query("select r.patientIdHash from MedicalReport r where r.id = :id")
+    List<String> findPatientIdHashById(@Param("id") Long id);
+
+    @Query("select r.checksum, r.originalFileName from MedicalReport r where r.id = :id")
+    List<Object[]> findFileKeyById(@Param("id") Long id);
+
+    @Query("select coalesce(c.pageCount, 0) from MedicalReport r join r.content c where r.id = :id")
+    List<Integer> findPageCountById(@Param("id") Long id);
+
+    @Query("select r.content from MedicalReport r where r.id = :id")
+    Optional<ReportContent> findContentByReportId(@Param("id") Long id);
+
+    @Query("select r.id, r.patientId from MedicalReport r "
+            + "where r.aadhaarLast4 is null and r.patientId is not null and r.id > :afterId order by r.id")
+    List<Object[]> findUnmaskedAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // Re-encryption chunks: loaded as entities so the updates go out as JDBC batches and only the changed
+    // rows are touched in the second-level cache
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"))
+    @Query("select r from MedicalReport r where r.patientId is not null and r.id > :afterId order by r.id")
+    List<MedicalReport> findWithPatientIdAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Modifying
+    @Query("update MedicalReport r set r.aadhaarLast4 = :aadhaarLast4 where r.id = :id")
+    int updateAadhaarLast4(@Param("id") Long id, @Param("aadhaarLast4") String aadhaarLast4);
+
+    // Export cursors: rows are pulled from the JDBC result set in fetch-size chunks as the stream is consumed
+    // Export cursors skip the second-level cache so a full export does not churn it
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select r from MedicalReport r join fetch r.content order by r.uploadedAt, r.id")
+    Stream<MedicalReport> streamAllWithContent();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select r from MedicalReport r join fetch r.content where r.uploadedAt > :since order by r.uploadedAt, r.id")
+    Stream<MedicalReport> streamWithContentUploadedAfter(@Param("since") LocalDateTime since);
+
+    // Search index rebuilds; bypasses the second-level cache like the export cursors
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"))
+    @Query("select r from MedicalReport r join fetch r.content where r.id in :ids")
+    List<MedicalReport> findWithContentByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.example.EHR.model.MedicalReportSummary(r.id, r.fileName, r.originalFileName, r.fileSize, "
+            + "r.mimeType, r.uploadedAt, r.uploadedBy, r.reportType, r.reportDate, c.pageCount, r.aadhaarLast4) "
+            + "from MedicalReport r join r.content c where r.id in :ids")
+    List<MedicalReportSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Search index reconciliation: id, checksum and patient hash of every report, in id order
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select r.id, r.checksum, r.patientIdHash from MedicalReport r order by r.id")
+    Stream<Object[]> streamIndexKeys();
 }
@@ -0,0 +1,15 @@
+package com.example.EHR.repository;
+
+import com.example.EHR.model.MedicalReportSummary;
+
+import java.util.List;
+
+public interface MedicalReportRepositoryCustom {
+
+    /**
+     * Returns up to {@code limit} summaries matching the filter, newest first, starting strictly after the
+     * filter's keyset position. Cost depends on the page size, not on how deep the page is.
+     */
+    List<MedicalReportSummary> findSummaries(ReportFilter filter, int limit);
+
+}
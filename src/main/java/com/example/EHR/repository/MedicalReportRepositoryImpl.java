@@ -0,0 +1,67 @@
+package com.example.EHR.repository;
+
+import com.example.EHR.model.MedicalReport;
+import com.example.EHR.model.MedicalReportSummary;
+import com.example.EHR.model.ReportContent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class MedicalReportRepositoryImpl implements MedicalReportRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<MedicalReportSummary> findSummaries(ReportFilter filter, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MedicalReportSummary> query = cb.createQuery(MedicalReportSummary.class);
+        Root<MedicalReport> r = query.from(MedicalReport.class);
+        Join<MedicalReport, ReportContent> c = r.join("content");
+        Path<LocalDateTime> uploadedAt = r.get("uploadedAt");
+        Path<Long> id = r.get("id");
+
+        query.select(cb.construct(MedicalReportSummary.class,
+                id, r.get("fileName"), r.get("originalFileName"), r.get("fileSize"), r.get("mimeType"),
+                uploadedAt, r.get("uploadedBy"), r.get("reportType"), r.get("reportDate"),
+                c.get("pageCount"), r.get("aadhaarLast4")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getPatientIdHash() != null) {
+            predicates.add(cb.equal(r.get("patientIdHash"), filter.getPatientIdHash()));
+        }
+        if (filter.getReportType() != null) {
+            predicates.add(cb.equal(r.get("reportType"), filter.getReportType()));
+        }
+        if (filter.getUploadedBy() != null) {
+            predicates.add(cb.equal(r.get("uploadedBy"), filter.getUploadedBy()));
+        }
+        Path<LocalDateTime> reportDate = r.get("reportDate");
+        if (filter.getReportDateFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(reportDate, filter.getReportDateFrom()));
+        }
+        if (filter.getReportDateTo() != null) {
+            predicates.add(cb.lessThan(reportDate, filter.getReportDateTo()));
+        }
+        if (filter.getAfterUploadedAt() != null && filter.getAfterId() != null) {
+            // (uploadedAt, id) < (after.uploadedAt, after.id)
+            predicates.add(cb.or(
+                    cb.lessThan(uploadedAt, filter.getAfterUploadedAt()),
+                    cb.and(cb.equal(uploadedAt, filter.getAfterUploadedAt()), cb.lessThan(id, filter.getAfterId()))));
+        }
+
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(cb.desc(uploadedAt), cb.desc(id));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.EHR.repository;
+
+import com.example.EHR.model.ReencryptionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReencryptionCheckpointRepository extends JpaRepository<ReencryptionCheckpoint, Integer> {
+}
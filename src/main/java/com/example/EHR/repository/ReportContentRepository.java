@@ -0,0 +1,14 @@
+package com.example.EHR.repository;
+
+import com.example.EHR.model.ReportContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ReportContentRepository extends JpaRepository<ReportContent, Long> {
+
+    Optional<ReportContent> findByChecksum(String checksum);
+
+}
@@ -0,0 +1,72 @@
+package com.example.EHR.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters and keyset position for report listings. Null fields are not applied.
+ * Results are ordered newest first by {@code (uploadedAt, id)}; the "after" pair is the last row of the
+ * previous page.
+ */
+public class ReportFilter {
+
+    private String patientIdHash;
+    private String reportType;
+    private String uploadedBy;
+    private LocalDateTime reportDateFrom;
+    private LocalDateTime reportDateTo;
+    private LocalDateTime afterUploadedAt;
+    private Long afterId;
+
+    public String getPatientIdHash() {
+        return patientIdHash;
+    }
+
+    public void setPatientIdHash(String patientIdHash) {
+        this.patientIdHash = patientIdHash;
+    }
+
+    public String getReportType() {
+        return reportType;
+    }
+
+    public void setReportType(String reportType) {
+        this.reportType = reportType;
+    }
+
+    public String getUploadedBy() {
+        return uploadedBy;
+    }
+
+    public void setUploadedBy(String uploadedBy) {
+        this.uploadedBy = uploadedBy;
+    }
+
+    public LocalDateTime getReportDateFrom() {
+        return reportDateFrom;
+    }
+
+    public void setReportDateFrom(LocalDateTime reportDateFrom) {
+        this.reportDateFrom = reportDateFrom;
+    }
+
+    public LocalDateTime getReportDateTo() {
+        return reportDateTo;
+    }
+
+    public void setReportDateTo(LocalDateTime reportDateTo) {
+        this.reportDateTo = reportDateTo;
+    }
+
+    public LocalDateTime getAfterUploadedAt() {
+        return afterUploadedAt;
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    public void setAfter(LocalDateTime uploadedAt, Long id) {
+        this.afterUploadedAt = uploadedAt;
+        this.afterId = id;
+    }
+}
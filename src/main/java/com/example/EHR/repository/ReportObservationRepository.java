@@ -0,0 +1,56 @@
+package com.example.EHR.repository;
+
+import com.example.EHR.model.Observation;
+import com.example.EHR.model.ReportObservation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ReportObservationRepository extends JpaRepository<ReportObservation, Long> {
+
+    // Served by idx_report_observations_patient
+    @Query("select o from ReportObservation o where o.patientIdHash = :patientIdHash and o.analyte = :analyte "
+            + "and o.observedAt between :from and :to order by o.observedAt desc, o.id desc")
+    List<ReportObservation> findForPatient(@Param("patientIdHash") String patientIdHash,
+                                           @Param("analyte") Observation.Type analyte,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           Limit limit);
+
+    @Query("select o from ReportObservation o where o.patientIdHash = :patientIdHash "
+            + "and o.observedAt between :from and :to order by o.observedAt desc, o.id desc")
+    List<ReportObservation> findAllForPatient(@Param("patientIdHash") String patientIdHash,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to,
+                                              Limit limit);
+
+    // Served by idx_report_observations_analyte: the scan covers the analyte and time range, and the value range
+    // is checked against the index's trailing numeric_value, so only matching rows are read from the table
+    @Query("select o from ReportObservation o where o.analyte = :analyte and o.observedAt between :from and :to "
+            + "and o.value between :min and :max order by o.observedAt desc, o.id desc")
+    List<ReportObservation> findForAnalyte(@Param("analyte") Observation.Type analyte,
+                                           @Param("min") double min,
+                                           @Param("max") double max,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           Limit limit);
+
+    // Startup load of the vitals time-series store
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select o.patientIdHash, o.analyte, o.observedAt, o.value, o.report.id, o.id from ReportObservation o "
+            + "where o.patientIdHash is not null order by o.id")
+    Stream<Object[]> streamTimeSeriesPoints();
+}
@@ -0,0 +1,18 @@
+package com.example.EHR.repository;
+
+import com.example.EHR.model.ReportPage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReportPageRepository extends JpaRepository<ReportPage, Long> {
+
+    // Served by uk_report_pages_content_page; only the requested rows are read
+    @Query("select p from ReportPage p where p.content.id = (select r.content.id from MedicalReport r where r.id = :reportId) "
+            + "and p.pageNumber between :from and :to order by p.pageNumber")
+    List<ReportPage> findPages(@Param("reportId") Long reportId, @Param("from") int from, @Param("to") int to);
+}
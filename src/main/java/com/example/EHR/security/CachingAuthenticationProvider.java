@@ -0,0 +1,165 @@
+package com.example.EHR.security;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers recently verified Basic credentials so that repeat requests skip the BCrypt check of the
+ * delegate provider.
+ * <p>
+ * Entries are keyed by an HMAC-SHA256 of username and password under a random per-process key, so the
+ * cache never holds a password or an offline-crackable hash of one. An entry is only honoured while it is
+ * younger than the TTL and the user's stored password hash and account flags are unchanged, so a password
+ * change or lock takes effect immediately. Failed attempts are never cached. At most {@code maxEntries}
+ * credentials are kept; when full, expired entries are purged and new credentials simply go uncached.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String HMAC = "HmacSHA256";
+    private static final int MAC_POOL_SIZE = 16;
+
+    private final AuthenticationProvider delegate;
+    private final UserDetailsService userDetailsService;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+    private final SecretKeySpec key;
+    private final BlockingQueue<Mac> macs = new ArrayBlockingQueue<>(MAC_POOL_SIZE);
+    private final ConcurrentMap<ByteBuffer, Entry> verified = new ConcurrentHashMap<>();
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, UserDetailsService userDetailsService,
+                                         Duration ttl, int maxEntries) {
+        this(delegate, userDetailsService, ttl, maxEntries, System::nanoTime);
+    }
+
+    CachingAuthenticationProvider(AuthenticationProvider delegate, UserDetailsService userDetailsService,
+                                  Duration ttl, int maxEntries, LongSupplier nanoClock) {
+        if (ttl.isNegative() || ttl.isZero() || maxEntries < 1) {
+            throw new IllegalArgumentException("Credential cache needs a positive TTL and size");
+        }
+        this.delegate = delegate;
+        this.userDetailsService = userDetailsService;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (username == null || !(credentials instanceof String password)) {
+            return delegate.authenticate(authentication);
+        }
+
+        ByteBuffer cacheKey = cacheKey(username, password);
+        Entry entry = verified.get(cacheKey);
+        if (entry != null) {
+            if (nanoClock.getAsLong() - entry.verifiedAt < ttlNanos) {
+                UserDetails user = currentUser(username);
+                if (user != null && entry.matches(user)) {
+                    UsernamePasswordAuthenticationToken result =
+                            UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+                    result.setDetails(authentication.getDetails());
+                    return result;
+                }
+            }
+            verified.remove(cacheKey, entry);
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            UserDetails user = currentUser(username);
+            if (user != null) {
+                remember(cacheKey, new Entry(user, nanoClock.getAsLong()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    int size() {
+        return verified.size();
+    }
+
+    private void remember(ByteBuffer cacheKey, Entry entry) {
+        if (verified.size() >= maxEntries) {
+            long now = nanoClock.getAsLong();
+            verified.values().removeIf(e -> now - e.verifiedAt >= ttlNanos);
+            if (verified.size() >= maxEntries) {
+                return;
+            }
+        }
+        verified.put(cacheKey, entry);
+    }
+
+    private UserDetails currentUser(String username) {
+        try {
+            return userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
+
+    private ByteBuffer cacheKey(String username, String password) {
+        Mac mac = macs.poll();
+        try {
+            if (mac == null) {
+                mac = Mac.getInstance(HMAC);
+                mac.init(key);
+            }
+            byte[] user = username.getBytes(StandardCharsets.UTF_8);
+            // Length prefix keeps ("ab", "c") and ("a", "bc") apart
+            mac.update(ByteBuffer.allocate(4).putInt(user.length).array());
+            mac.update(user);
+            mac.update(password.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        } finally {
+            if (mac != null) {
+                macs.offer(mac);
+            }
+        }
+    }
+
+    private static final class Entry {
+        final String passwordHash;
+        final long verifiedAt;
+
+        Entry(UserDetails user, long verifiedAt) {
+            this.passwordHash = user.getPassword();
+            this.verifiedAt = verifiedAt;
+        }
+
+        boolean matches(UserDetails user) {
+            return passwordHash != null && passwordHash.equals(user.getPassword()) && user.isEnabled()
+                    && user.isAccountNonLocked() && user.isAccountNonExpired() && user.isCredentialsNonExpired();
+        }
+    }
+}
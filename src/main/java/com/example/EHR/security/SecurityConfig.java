@@ -1,8 +1,11 @@
 package com.example.EHR.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.core.userdetails.User;
@@ -12,6 +15,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.time.Duration;
+
 import static org.springframework.security.config.Customizer.withDefaults;
 
 @Configuration
@@ -24,10 +29,20 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/public/**").permitAll()
-                        .requestMatchers(HttpMethod.POST, "/api/reports/upload").hasAnyRole("DIAGNOST", "ADMIN")
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/reports/upload", "/api/reports/upload/batch").hasAnyRole("DIAGNOST", "ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/reports/jobs/**").hasAnyRole("DIAGNOST", "ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/reports/export").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/reports").hasAnyRole("DOCTOR", "ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/reports/search").hasAnyRole("PATIENT", "DOCTOR", "ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/reports/search-by-aadhaar/**").hasAnyRole("DOCTOR", "ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/reports/*/text").hasAnyRole("PATIENT", "DOCTOR", "ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/reports/*/file").hasAnyRole("PATIENT", "DOCTOR", "ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/reports/*/pages", "/api/reports/*/pages/*").hasAnyRole("PATIENT", "DOCTOR", "ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/reports/**").hasAnyRole("PATIENT", "ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/observations").hasAnyRole("DOCTOR", "ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/observations/patient/**").hasAnyRole("PATIENT", "DOCTOR", "ADMIN")
                         .requestMatchers("/api/aadhaar/**").authenticated()
                         .anyRequest().authenticated()
                 )
@@ -35,6 +50,21 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * BCrypt verification, fronted by a cache of recently verified credentials so that stateless Basic
+     * auth does not pay a cost-12 hash on every request.
+     */
+    @Bean
+    public AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService, PasswordEncoder encoder,
+                                                         @Value("${app.security.credential-cache.enabled:true}") boolean cacheEnabled,
+                                                         @Value("${app.security.credential-cache.ttl:PT5M}") Duration ttl,
+                                                         @Value("${app.security.credential-cache.max-entries:10000}") int maxEntries) {
+        DaoAuthenticationProvider bcrypt = new DaoAuthenticationProvider();
+        bcrypt.setUserDetailsService(userDetailsService);
+        bcrypt.setPasswordEncoder(encoder);
+        return cacheEnabled ? new CachingAuthenticationProvider(bcrypt, userDetailsService, ttl, maxEntries) : bcrypt;
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder(12);
@@ -0,0 +1,163 @@
+package com.example.EHR.service;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Thread-safe AES-GCM / SHA-256 primitives backed by small pools of {@link Cipher} and {@link MessageDigest}
+ * instances. Provider lookup in {@code getInstance} dominates the cost of encrypting a 12-digit value, so
+ * instances are borrowed and returned instead of created per call. The pools never block: when empty a new
+ * instance is created, and when full a returned instance is dropped.
+ * <p>
+ * Ciphertexts are {@code format || keyId || IV || ciphertext || tag}; the two header bytes are authenticated
+ * as associated data, so a ciphertext cannot be relabelled with another key id. Ciphertexts written before
+ * key versioning are plain {@code IV || ciphertext || tag} under key {@value #LEGACY_KEY_ID} and are read
+ * through {@link #decryptLegacy}.
+ */
+final class AadhaarCryptoEngine {
+
+    static final int GCM_IV_LENGTH = 12;
+    static final int GCM_TAG_LENGTH = 128;
+    static final int GCM_TAG_BYTES = GCM_TAG_LENGTH / 8;
+    static final int LEGACY_KEY_ID = 1;
+    static final int MAX_KEY_ID = 255;
+    private static final byte FORMAT_VERSIONED = 1;
+    private static final int HEADER_LENGTH = 2;
+    private static final String ALGORITHM = "AES/GCM/NoPadding";
+    private static final String DIGEST = "SHA-256";
+
+    private final SecretKey[] keys = new SecretKey[MAX_KEY_ID + 1];
+    private final int activeKeyId;
+    private final SecureRandom secureRandom;
+    private final BlockingQueue<Cipher> ciphers;
+    private final BlockingQueue<MessageDigest> digests;
+
+    /**
+     * @param keys        keys by id, 1 to {@value #MAX_KEY_ID}
+     * @param activeKeyId the key new ciphertexts are written with
+     */
+    AadhaarCryptoEngine(Map<Integer, SecretKey> keys, int activeKeyId, SecureRandom secureRandom, int poolSize) {
+        keys.forEach((id, key) -> {
+            if (id < 1 || id > MAX_KEY_ID) {
+                throw new IllegalArgumentException("Key id must be between 1 and " + MAX_KEY_ID + ": " + id);
+            }
+            this.keys[id] = key;
+        });
+        if (activeKeyId < 1 || activeKeyId > MAX_KEY_ID || this.keys[activeKeyId] == null) {
+            throw new IllegalArgumentException("Active key " + activeKeyId + " is not configured");
+        }
+        this.activeKeyId = activeKeyId;
+        this.secureRandom = secureRandom;
+        this.ciphers = new ArrayBlockingQueue<>(poolSize);
+        this.digests = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * Returns {@code format || keyId || IV || ciphertext || tag} under the active key, in a single array.
+     */
+    byte[] encrypt(byte[] plaintext) throws GeneralSecurityException {
+        Cipher cipher = borrowCipher();
+        try {
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            secureRandom.nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, keys[activeKeyId], new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+
+            int offset = HEADER_LENGTH + GCM_IV_LENGTH;
+            byte[] out = new byte[offset + cipher.getOutputSize(plaintext.length)];
+            out[0] = FORMAT_VERSIONED;
+            out[1] = (byte) activeKeyId;
+            System.arraycopy(iv, 0, out, HEADER_LENGTH, GCM_IV_LENGTH);
+            cipher.updateAAD(out, 0, HEADER_LENGTH);
+            int written = cipher.doFinal(plaintext, 0, plaintext.length, out, offset);
+            if (written != out.length - offset) {
+                throw new GeneralSecurityException("Unexpected ciphertext length");
+            }
+            return out;
+        } finally {
+            ciphers.offer(cipher);
+        }
+    }
+
+    /**
+     * Decrypts a versioned ciphertext with the key named in its header, without copying the IV or
+     * ciphertext out of the array.
+     */
+    byte[] decrypt(byte[] data) throws GeneralSecurityException {
+        if (data.length < HEADER_LENGTH + GCM_IV_LENGTH + GCM_TAG_BYTES || data[0] != FORMAT_VERSIONED) {
+            throw new GeneralSecurityException("Not a versioned ciphertext");
+        }
+        SecretKey key = keys[data[1] & 0xFF];
+        if (key == null) {
+            throw new GeneralSecurityException("Unknown key id " + (data[1] & 0xFF));
+        }
+        int offset = HEADER_LENGTH + GCM_IV_LENGTH;
+        Cipher cipher = borrowCipher();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, data, HEADER_LENGTH, GCM_IV_LENGTH));
+            cipher.updateAAD(data, 0, HEADER_LENGTH);
+            return cipher.doFinal(data, offset, data.length - offset);
+        } finally {
+            ciphers.offer(cipher);
+        }
+    }
+
+    /**
+     * Decrypts a pre-versioning {@code IV || ciphertext || tag} array with key {@value #LEGACY_KEY_ID}.
+     */
+    byte[] decryptLegacy(byte[] data) throws GeneralSecurityException {
+        if (data.length < GCM_IV_LENGTH + GCM_TAG_BYTES) {
+            throw new GeneralSecurityException("Ciphertext too short");
+        }
+        SecretKey key = keys[LEGACY_KEY_ID];
+        if (key == null) {
+            throw new GeneralSecurityException("Legacy key " + LEGACY_KEY_ID + " is not configured");
+        }
+        Cipher cipher = borrowCipher();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH, data, 0, GCM_IV_LENGTH));
+            return cipher.doFinal(data, GCM_IV_LENGTH, data.length - GCM_IV_LENGTH);
+        } finally {
+            ciphers.offer(cipher);
+        }
+    }
+
+    /**
+     * Key id named in a versioned ciphertext's header, or -1 if {@code data} is not versioned.
+     */
+    static int keyIdOf(byte[] data) {
+        return data.length >= HEADER_LENGTH && data[0] == FORMAT_VERSIONED ? data[1] & 0xFF : -1;
+    }
+
+    int getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    byte[] sha256(byte[] input) throws GeneralSecurityException {
+        MessageDigest md = digests.poll();
+        if (md == null) {
+            md = MessageDigest.getInstance(DIGEST);
+        }
+        try {
+            return md.digest(input);
+        } finally {
+            md.reset();
+            digests.offer(md);
+        }
+    }
+
+    SecretKey getActiveKey() {
+        return keys[activeKeyId];
+    }
+
+    private Cipher borrowCipher() throws GeneralSecurityException {
+        Cipher cipher = ciphers.poll();
+        return cipher != null ? cipher : Cipher.getInstance(ALGORITHM);
+    }
+}
@@ -2,139 +2,208 @@ package com.example.EHR.service;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.security.MessageDigest;
 import java.util.HexFormat;
-import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
-import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.Base64;
-
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Aadhaar encryption with versioned keys. {@code aadhaar.encryption.keys} lists keys as
+ * {@code id:base64Key} pairs separated by commas; {@code aadhaar.encryption.key} is key 1, the key used
+ * before ciphertexts carried a key id. New ciphertexts use {@code aadhaar.encryption.active-key-id}
+ * (default: the highest configured id), and any configured key can still decrypt. After rotating,
+ * {@link AadhaarReencryptionJob} moves stored reports to the active key, and old keys can be retired once
+ * its checkpoint is complete: by then no report, and no extraction job, holds a ciphertext under them.
+ */
 @Service
 public class AadhaarEncryptionService {
 
-    private static final String ALGORITHM = "AES/GCM/NoPadding";
-    private static final int GCM_IV_LENGTH = 12;
-    private static final int GCM_TAG_LENGTH = 128;
+    private static final int AADHAAR_LENGTH = 12;
     private static final int AES_KEY_SIZE = 256;
+    private static final int CRYPTO_POOL_SIZE = 64;
+    // IV || ciphertext || tag of twelve digits, as written before key versioning
+    private static final int LEGACY_CIPHERTEXT_LENGTH =
+            AadhaarCryptoEngine.GCM_IV_LENGTH + AADHAAR_LENGTH + AadhaarCryptoEngine.GCM_TAG_BYTES;
 
-    private final SecretKey secretKey;
-    private final SecureRandom secureRandom;
+    private final AadhaarCryptoEngine engine;
 
-    public AadhaarEncryptionService(@Value("${aadhaar.encryption.key:#{null}}") String base64Key) {
+    public AadhaarEncryptionService(@Value("${aadhaar.encryption.key:#{null}}") String base64Key,
+                                    @Value("${aadhaar.encryption.keys:#{null}}") String keyring,
+                                    @Value("${aadhaar.encryption.active-key-id:0}") int activeKeyId) {
         try {
+            Map<Integer, SecretKey> keys = parseKeyring(keyring);
             if (base64Key != null && !base64Key.isEmpty()) {
-                byte[] decodedKey = Base64.getDecoder().decode(base64Key);
-                this.secretKey = new SecretKeySpec(decodedKey, "AES");
-            } else {
+                if (keys.containsKey(AadhaarCryptoEngine.LEGACY_KEY_ID)) {
+                    throw new IllegalArgumentException("Key 1 is set by both aadhaar.encryption.key and aadhaar.encryption.keys");
+                }
+                keys.put(AadhaarCryptoEngine.LEGACY_KEY_ID, new SecretKeySpec(Base64.getDecoder().decode(base64Key), "AES"));
+            }
+            if (keys.isEmpty()) {
                 KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
                 keyGenerator.init(AES_KEY_SIZE);
-                this.secretKey = keyGenerator.generateKey();
+                SecretKey secretKey = keyGenerator.generateKey();
                 System.out.println("Generated AES Key (Base64): " +
                     Base64.getEncoder().encodeToString(secretKey.getEncoded()));
+                keys.put(AadhaarCryptoEngine.LEGACY_KEY_ID, secretKey);
             }
-            this.secureRandom = new SecureRandom();
+            int active = activeKeyId > 0 ? activeKeyId : Collections.max(keys.keySet());
+            this.engine = new AadhaarCryptoEngine(keys, active, new SecureRandom(), CRYPTO_POOL_SIZE);
         } catch (Exception e) {
             throw new RuntimeException("Failed to initialize encryption service", e);
         }
     }
 
-    public String encrypt(String aadhaarNumber) {
-        try {
-            if (aadhaarNumber == null || !aadhaarNumber.matches("\\d{12}")) {
-                throw new IllegalArgumentException("Invalid Aadhaar number format. Must be 12 digits.");
+    /**
+     * Allocation-free check for exactly twelve ASCII digits.
+     */
+    public static boolean isValidAadhaar(String aadhaarNumber) {
+        if (aadhaarNumber == null || aadhaarNumber.length() != AADHAAR_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < AADHAAR_LENGTH; i++) {
+            char c = aadhaarNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
             }
+        }
+        return true;
+    }
 
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            secureRandom.nextBytes(iv);
-
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, parameterSpec);
-
-            byte[] plaintext = aadhaarNumber.getBytes(StandardCharsets.UTF_8);
-            byte[] ciphertext = cipher.doFinal(plaintext);
-
-            ByteBuffer byteBuffer = ByteBuffer.allocate(iv.length + ciphertext.length);
-            byteBuffer.put(iv);
-            byteBuffer.put(ciphertext);
-
-            return Base64.getEncoder().encodeToString(byteBuffer.array());
-
-        } catch (IllegalArgumentException e) {
-            throw e;
+    public String encrypt(String aadhaarNumber) {
+        byte[] plaintext = toDigitBytes(aadhaarNumber);
+        try {
+            return Base64.getEncoder().encodeToString(engine.encrypt(plaintext));
         } catch (Exception e) {
             throw new RuntimeException("Encryption failed", e);
         }
     }
 
     public String hashAadhaar(String aadhaarNumber) {
+        byte[] plaintext = toDigitBytes(aadhaarNumber);
         try {
-            if (aadhaarNumber == null || !aadhaarNumber.matches("\\d{12}")) {
-                throw new IllegalArgumentException("Invalid Aadhaar number format. Must be 12 digits.");
-            }
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] digest = md.digest(aadhaarNumber.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(digest);
+            return HexFormat.of().formatHex(engine.sha256(plaintext));
         } catch (Exception e) {
             throw new RuntimeException("Failed to hash Aadhaar", e);
         }
     }
 
     public String decrypt(String encryptedData) {
+        return new String(open(decode(encryptedData)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Whether a stored ciphertext was written under a key other than the active one, or before key
+     * versioning.
+     */
+    public boolean needsReencryption(String encryptedData) {
+        byte[] decoded = decode(encryptedData);
+        return decoded.length == LEGACY_CIPHERTEXT_LENGTH || AadhaarCryptoEngine.keyIdOf(decoded) != engine.getActiveKeyId();
+    }
+
+    /**
+     * Decrypts with whichever key the ciphertext names and encrypts again under the active key.
+     */
+    public String reencrypt(String encryptedData) {
+        byte[] plaintext = open(decode(encryptedData));
         try {
-            if (encryptedData == null || encryptedData.isEmpty()) {
-                throw new IllegalArgumentException("Encrypted data cannot be null or empty");
-            }
+            return Base64.getEncoder().encodeToString(engine.encrypt(plaintext));
+        } catch (Exception e) {
+            throw new RuntimeException("Encryption failed", e);
+        }
+    }
 
-            byte[] decoded = Base64.getDecoder().decode(encryptedData);
+    public int getActiveKeyId() {
+        return engine.getActiveKeyId();
+    }
 
-            ByteBuffer byteBuffer = ByteBuffer.wrap(decoded);
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            byteBuffer.get(iv);
+    public String maskAadhaar(String aadhaarNumber) {
+        return maskLastFour(lastFour(aadhaarNumber));
+    }
 
-            byte[] ciphertext = new byte[byteBuffer.remaining()];
-            byteBuffer.get(ciphertext);
+    public String lastFour(String aadhaarNumber) {
+        requireValid(aadhaarNumber);
+        return aadhaarNumber.substring(8);
+    }
 
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec);
+    /**
+     * Masked form from the stored last four digits, for callers that never hold the full number.
+     */
+    public String maskLastFour(String lastFour) {
+        return "XXXX-XXXX-" + lastFour;
+    }
 
-            byte[] plaintext = cipher.doFinal(ciphertext);
+    public String formatAadhaar(String aadhaarNumber) {
+        requireValid(aadhaarNumber);
+        return new StringBuilder(AADHAAR_LENGTH + 2)
+                .append(aadhaarNumber, 0, 4).append('-')
+                .append(aadhaarNumber, 4, 8).append('-')
+                .append(aadhaarNumber, 8, AADHAAR_LENGTH)
+                .toString();
+    }
 
-            return new String(plaintext, StandardCharsets.UTF_8);
+    /**
+     * The active key, Base64-encoded.
+     */
+    public String getEncodedKey() {
+        return Base64.getEncoder().encodeToString(engine.getActiveKey().getEncoded());
+    }
 
-        } catch (IllegalArgumentException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new RuntimeException("Decryption failed. Data may be corrupted or tampered with.", e);
+    private static Map<Integer, SecretKey> parseKeyring(String keyring) {
+        Map<Integer, SecretKey> keys = new HashMap<>();
+        if (keyring == null || keyring.isBlank()) {
+            return keys;
+        }
+        for (String entry : keyring.split(",")) {
+            int sep = entry.indexOf(':');
+            if (sep < 0) {
+                throw new IllegalArgumentException("Key entries must be id:base64Key");
+            }
+            int id = Integer.parseInt(entry.substring(0, sep).strip());
+            byte[] key = Base64.getDecoder().decode(entry.substring(sep + 1).strip());
+            if (keys.put(id, new SecretKeySpec(key, "AES")) != null) {
+                throw new IllegalArgumentException("Key " + id + " is configured twice");
+            }
         }
+        return keys;
     }
 
-    public String maskAadhaar(String aadhaarNumber) {
-        if (aadhaarNumber == null || !aadhaarNumber.matches("\\d{12}")) {
-            throw new IllegalArgumentException("Invalid Aadhaar number format. Must be 12 digits.");
+    private static byte[] decode(String encryptedData) {
+        if (encryptedData == null || encryptedData.isEmpty()) {
+            throw new IllegalArgumentException("Encrypted data cannot be null or empty");
         }
+        // Malformed Base64 surfaces as IllegalArgumentException, like the null/empty case
+        return Base64.getDecoder().decode(encryptedData);
+    }
 
-        String lastFour = aadhaarNumber.substring(8);
-        return "XXXX-XXXX-" + lastFour;
+    private byte[] open(byte[] decoded) {
+        try {
+            return decoded.length == LEGACY_CIPHERTEXT_LENGTH ? engine.decryptLegacy(decoded) : engine.decrypt(decoded);
+        } catch (Exception e) {
+            throw new RuntimeException("Decryption failed. Data may be corrupted or tampered with.", e);
+        }
     }
 
-    public String formatAadhaar(String aadhaarNumber) {
-        if (aadhaarNumber == null || !aadhaarNumber.matches("\\d{12}")) {
+    private static void requireValid(String aadhaarNumber) {
+        if (!isValidAadhaar(aadhaarNumber)) {
             throw new IllegalArgumentException("Invalid Aadhaar number format. Must be 12 digits.");
         }
-
-        return aadhaarNumber.substring(0, 4) + "-" +
-               aadhaarNumber.substring(4, 8) + "-" +
-               aadhaarNumber.substring(8);
     }
 
-    public String getEncodedKey() {
-        return Base64.getEncoder().encodeToString(secretKey.getEncoded());
+    /**
+     * Validates and converts the digits to ASCII bytes in one pass, skipping the charset encoder.
+     */
+    private static byte[] toDigitBytes(String aadhaarNumber) {
+        requireValid(aadhaarNumber);
+        byte[] bytes = new byte[AADHAAR_LENGTH];
+        for (int i = 0; i < AADHAAR_LENGTH; i++) {
+            bytes[i] = (byte) aadhaarNumber.charAt(i);
+        }
+        return bytes;
     }
 }
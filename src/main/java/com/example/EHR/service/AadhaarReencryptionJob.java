@@ -0,0 +1,258 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.MedicalReport;
+import com.example.EHR.model.ReencryptionCheckpoint;
+import com.example.EHR.repository.ExtractionJobRepository;
+import com.example.EHR.repository.MedicalReportRepository;
+import com.example.EHR.repository.ReencryptionCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves every stored {@code MedicalReport.patientId} onto the active Aadhaar key after a rotation, in the
+ * background after startup.
+ * <p>
+ * Reports are walked in id order in chunks. Each chunk is re-encrypted in parallel on a small pool and
+ * committed in one transaction together with its {@link ReencryptionCheckpoint}, so a restart resumes
+ * after the last committed chunk and a finished rotation is not rescanned. Rows already on the active key
+ * are skipped and undecryptable rows are counted and left as they are. The scan is paced to
+ * {@code max-rows-per-second} and the pool is kept to half the cores by default, so the job does not
+ * compete with request threads for CPU or database connections. A chunk that loses a row to a concurrent
+ * delete fails at commit and is read again without it.
+ * <p>
+ * Extraction jobs also hold an encrypted Aadhaar until they finish. Those rows are not rewritten, since a
+ * worker saving its job would collide with the update: finished jobs have theirs cleared, and the rotation
+ * is only marked complete once no unfinished job holds a ciphertext under another key. New jobs are
+ * encrypted under the active key, so that wait ends as the old jobs finish.
+ */
+@Component
+public class AadhaarReencryptionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(AadhaarReencryptionJob.class);
+    // Consecutive attempts at one chunk before the run gives up; each retry follows a concurrent delete
+    private static final int MAX_CHUNK_ATTEMPTS = 5;
+
+    private final MedicalReportRepository repository;
+    private final ReencryptionCheckpointRepository checkpoints;
+    private final ExtractionJobRepository jobs;
+    private final AadhaarEncryptionService encryptionService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final int maxRowsPerSecond;
+    private final Duration jobPollInterval;
+    private final ForkJoinPool pool;
+    private final Counter reencryptedRows;
+    private final Counter failedRows;
+    private volatile boolean stopping;
+    private volatile Thread worker;
+
+    public AadhaarReencryptionJob(MedicalReportRepository repository,
+                                  ReencryptionCheckpointRepository checkpoints,
+                                  ExtractionJobRepository jobs,
+                                  AadhaarEncryptionService encryptionService,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry registry,
+                                  @Value("${app.aadhaar.reencryption.enabled:true}") boolean enabled,
+                                  @Value("${app.aadhaar.reencryption.chunk-size:500}") int chunkSize,
+                                  @Value("${app.aadhaar.reencryption.max-rows-per-second:2000}") int maxRowsPerSecond,
+                                  @Value("${app.aadhaar.reencryption.job-poll-interval:PT5S}") Duration jobPollInterval,
+                                  @Value("${app.aadhaar.reencryption.threads:#{T(java.lang.Math).max(1, T(java.lang.Runtime).getRuntime().availableProcessors() / 2)}}") int threads) {
+        this.repository = repository;
+        this.checkpoints = checkpoints;
+        this.jobs = jobs;
+        this.encryptionService = encryptionService;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.jobPollInterval = jobPollInterval;
+        this.pool = new ForkJoinPool(Math.max(1, threads));
+        this.reencryptedRows = Counter.builder("ehr.aadhaar.reencryption.rows")
+                .description("Stored Aadhaar numbers re-encrypted under the active key")
+                .tag("result", "reencrypted")
+                .register(registry);
+        this.failedRows = Counter.builder("ehr.aadhaar.reencryption.rows")
+                .description("Stored Aadhaar numbers re-encrypted under the active key")
+                .tag("result", "failed")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("Aadhaar re-encryption stopped, will resume on next start", e);
+            }
+        }, "aadhaar-reencryption");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Re-encrypts until every report is on the active key and no unfinished extraction job holds an older
+     * ciphertext, or the job is stopped.
+     *
+     * @return the checkpoint for the active key as of the last committed chunk
+     */
+    ReencryptionCheckpoint run() throws InterruptedException {
+        int keyId = encryptionService.getActiveKeyId();
+        ReencryptionCheckpoint checkpoint = checkpoints.findById(keyId).orElseGet(() -> new ReencryptionCheckpoint(keyId));
+        if (checkpoint.getCompletedAt() != null) {
+            return checkpoint;
+        }
+        if (checkpoint.getLastReportId() > 0) {
+            log.info("Resuming Aadhaar re-encryption to key {} after report {}", keyId, checkpoint.getLastReportId());
+        }
+
+        long started = System.nanoTime();
+        long scanned = 0;
+        int attempts = 0;
+        while (!stopping) {
+            ReencryptionCheckpoint current = checkpoint;
+            int[] chunk;
+            try {
+                chunk = transactionTemplate.execute(status -> reencryptChunk(current));
+            } catch (OptimisticLockingFailureException e) {
+                // A report of the chunk was deleted before it committed. The chunk was rolled back, so it is
+                // read again from the last committed checkpoint, this time without the deleted report
+                if (++attempts >= MAX_CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                checkpoint = checkpoints.findById(keyId).orElseGet(() -> new ReencryptionCheckpoint(keyId));
+                log.debug("Re-encryption chunk after report {} lost a row to a concurrent delete, retrying",
+                        checkpoint.getLastReportId(), e);
+                continue;
+            }
+            attempts = 0;
+            if (chunk == null || chunk[0] == 0) {
+                if (!awaitExtractionJobs(keyId)) {
+                    break;
+                }
+                checkpoint.complete();
+                checkpoint = checkpoints.save(checkpoint);
+                log.info("Aadhaar re-encryption to key {} complete: {} re-encrypted, {} undecryptable", keyId,
+                        checkpoint.getReencrypted(), checkpoint.getFailed());
+                break;
+            }
+            reencryptedRows.increment(chunk[1]);
+            failedRows.increment(chunk[2]);
+            scanned += chunk[0];
+            throttle(started, scanned);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Clears the Aadhaar of finished extraction jobs and waits until no unfinished one holds a ciphertext
+     * under another key. Returns false if the job was stopped first.
+     */
+    private boolean awaitExtractionJobs(int keyId) throws InterruptedException {
+        jobs.clearPatientIdOfFinished();
+        boolean logged = false;
+        while (!stopping) {
+            long pending = jobs.findPatientIdsOfUnfinished().stream().filter(this::onOldKey).count();
+            if (pending == 0) {
+                return true;
+            }
+            if (!logged) {
+                log.info("Waiting for {} extraction jobs under an older key before completing rotation to key {}",
+                        pending, keyId);
+                logged = true;
+            }
+            TimeUnit.MILLISECONDS.sleep(jobPollInterval.toMillis());
+        }
+        return false;
+    }
+
+    // Undecryptable values cannot be moved either way, so like undecryptable reports they do not hold up the rotation
+    private boolean onOldKey(String patientId) {
+        try {
+            return encryptionService.needsReencryption(patientId);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs inside the chunk transaction. Returns rows scanned, re-encrypted and failed.
+     */
+    private int[] reencryptChunk(ReencryptionCheckpoint checkpoint) {
+        List<MedicalReport> reports = repository.findWithPatientIdAfter(checkpoint.getLastReportId(), Limit.of(chunkSize));
+        if (reports.isEmpty()) {
+            return new int[]{0, 0, 0};
+        }
+        // Only the crypto runs on the pool; the entities are updated back on this thread
+        String[] replacements = pool.submit(() -> reports.parallelStream()
+                .map(report -> reencrypt(report.getPatientId()))
+                .toArray(String[]::new)).join();
+
+        int reencrypted = 0;
+        int failed = 0;
+        for (int i = 0; i < replacements.length; i++) {
+            String replacement = replacements[i];
+            if (replacement == null) {
+                failed++;
+            } else if (!replacement.isEmpty()) {
+                reports.get(i).setPatientId(replacement);
+                reencrypted++;
+            }
+        }
+        checkpoint.advance(reports.get(reports.size() - 1).getId(), reencrypted, failed);
+        checkpoints.save(checkpoint);
+        return new int[]{reports.size(), reencrypted, failed};
+    }
+
+    // New ciphertext, "" if already on the active key, null if undecryptable
+    private String reencrypt(String patientId) {
+        try {
+            return encryptionService.needsReencryption(patientId) ? encryptionService.reencrypt(patientId) : "";
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void throttle(long startedNanos, long scanned) throws InterruptedException {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long dueNanos = scanned * TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond;
+        long aheadNanos = dueNanos - (System.nanoTime() - startedNanos);
+        if (aheadNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.ExtractionJob;
+import com.example.EHR.repository.ExtractionJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Asynchronous uploads. A job is acknowledged only after its row is committed and the spooled file has
+ * been moved into {@code app.extraction.job-dir}, so an accepted upload survives a restart: queued and
+ * running jobs are resumed on startup. The report and the job's completion are committed in one
+ * transaction, so a resumed job never finds its report already stored.
+ * <p>
+ * Resuming runs as a lifecycle phase ahead of the web server, so no upload can be in flight while the job
+ * directory is cleaned up.
+ */
+@Service
+public class ExtractionJobService implements SmartLifecycle {
+
+    // Below the web server's phase (just under DEFAULT_PHASE), so jobs are resumed before requests are accepted
+    private static final int RESUME_PHASE = 0;
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractionJobService.class);
+
+    private final MedicalReportService reportService;
+    private final ExtractionJobRepository repository;
+    private final AadhaarEncryptionService aadhaarEncryptionService;
+    private final TaskExecutor executor;
+    private final Duration retention;
+    private final Path jobDirectory;
+    // Jobs queued or running in this process, for status requests to long-poll on
+    private final Map<String, CompletableFuture<ExtractionJob>> pending = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public ExtractionJobService(MedicalReportService reportService,
+                                ExtractionJobRepository repository,
+                                AadhaarEncryptionService aadhaarEncryptionService,
+                                @Qualifier("extractionExecutor") TaskExecutor executor,
+                                @Value("${app.extraction.job-retention:PT1H}") Duration retention,
+                                @Value("${app.extraction.job-dir:${java.io.tmpdir}/ehr-extraction-jobs}") String jobDir) {
+        this.reportService = reportService;
+        this.repository = repository;
+        this.aadhaarEncryptionService = aadhaarEncryptionService;
+        this.executor = executor;
+        this.retention = retention;
+        try {
+            this.jobDirectory = Files.createDirectories(Path.of(jobDir)).toAbsolutePath();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create extraction job directory " + jobDir, e);
+        }
+    }
+
+    /**
+     * Spools the upload on the calling thread, records the job and queues extraction on the worker pool.
+     *
+     * @throws RejectedExecutionException if the worker queue is full
+     */
+    public ExtractionJob submit(MultipartFile file, String uploadedBy, String patientId, String reportType, LocalDateTime reportDate) {
+        purgeExpired();
+
+        // Validated (and encrypted) before anything is written, so a bad Aadhaar is a 400 and not a failed job
+        String encryptedPatientId = patientId != null && !patientId.isBlank()
+                ? aadhaarEncryptionService.encrypt(patientId) : null;
+        ExtractionJob job = new ExtractionJob(UUID.randomUUID().toString(), uploadedBy);
+        SpooledUpload upload;
+        try (SpooledUpload spooled = reportService.spool(file)) {
+            upload = spooled.moveTo(jobDirectory.resolve(job.getId() + ".pdf"));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to queue uploaded file", e);
+        }
+
+        try {
+            job.setSpoolPath(upload.getPath().toString());
+            job.setChecksum(upload.getChecksum());
+            job.setFileSize(upload.getSize());
+            job.setOriginalFileName(upload.getOriginalFilename());
+            job.setUploaderRole(upload.getUploaderRole());
+            job.setSpoolNanos(upload.getSpoolNanos());
+            job.setPatientId(encryptedPatientId);
+            job.setReportType(reportType);
+            job.setReportDate(reportDate);
+            job = repository.save(job);
+        } catch (RuntimeException e) {
+            upload.close();
+            throw e;
+        }
+
+        try {
+            enqueue(job, upload);
+        } catch (RejectedExecutionException e) {
+            repository.delete(job);
+            upload.close();
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<ExtractionJob> find(String id) {
+        return repository.findById(id);
+    }
+
+    /**
+     * Completes with the job's final state once it finishes in this process; already complete if the
+     * job is finished or not running here.
+     */
+    public CompletableFuture<ExtractionJob> completion(ExtractionJob job) {
+        CompletableFuture<ExtractionJob> completion = job.isFinished() ? null : pending.get(job.getId());
+        return completion != null ? completion : CompletableFuture.completedFuture(job);
+    }
+
+    @Override
+    public void start() {
+        resumeUnfinished();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return RESUME_PHASE;
+    }
+
+    /**
+     * Requeues jobs left queued or running by the previous process. Spool files without a job row (the
+     * process stopped between spooling and committing the job) were never acknowledged and are deleted, so
+     * this must not run while uploads are being accepted: a file between {@code moveTo} and its job's commit
+     * would be taken for an orphan.
+     */
+    void resumeUnfinished() {
+        List<ExtractionJob> unfinished = repository.findByStatusInOrderBySubmittedAt(
+                List.of(ExtractionJob.Status.QUEUED, ExtractionJob.Status.RUNNING));
+        deleteOrphanedSpoolFiles(unfinished);
+
+        int resumed = 0;
+        for (ExtractionJob job : unfinished) {
+            Path path = Path.of(job.getSpoolPath());
+            if (!Files.isRegularFile(path)) {
+                job.fail("Uploaded file was lost before extraction finished");
+                repository.save(job);
+                continue;
+            }
+            job.requeue();
+            ExtractionJob queued = repository.save(job);
+            SpooledUpload upload = SpooledUpload.restore(path, queued.getChecksum(), queued.getFileSize(),
+                    queued.getOriginalFileName(), queued.getUploaderRole(), queued.getSpoolNanos());
+            try {
+                enqueue(queued, upload);
+            } catch (RejectedExecutionException e) {
+                // Queue is full: run it here rather than leave an acknowledged job stranded
+                run(queued, upload);
+            }
+            resumed++;
+        }
+        if (resumed > 0) {
+            log.info("Resumed {} extraction jobs from before the restart", resumed);
+        }
+    }
+
+    private void enqueue(ExtractionJob job, SpooledUpload upload) {
+        pending.put(job.getId(), new CompletableFuture<>());
+        try {
+            executor.execute(() -> run(job, upload));
+        } catch (RejectedExecutionException e) {
+            pending.remove(job.getId());
+            throw e;
+        }
+    }
+
+    private void run(ExtractionJob job, SpooledUpload upload) {
+        CompletableFuture<ExtractionJob> completion = pending.get(job.getId());
+        try {
+            job.markRunning();
+            job = repository.save(job);
+            ExtractionJob started = job;
+            try {
+                String patientId = job.getPatientId() != null ? aadhaarEncryptionService.decrypt(job.getPatientId()) : null;
+                job = reportService.ingest(upload, job.getSubmittedBy(), patientId, job.getReportType(),
+                        job.getReportDate(), saved -> {
+                            started.complete(saved.getId());
+                            return repository.save(started);
+                        });
+            } catch (RuntimeException e) {
+                // No report was committed: ingest failed before saving it, or it rolled back with the job
+                job.fail(e.getMessage());
+                job = repository.save(job);
+            }
+            // Only once the outcome is committed; until then a restart runs the job again
+            upload.close();
+        } catch (RuntimeException e) {
+            log.warn("Could not record the state of extraction job {}, it will be retried on restart", job.getId(), e);
+        } finally {
+            pending.remove(job.getId());
+            if (completion != null) {
+                completion.complete(job);
+            }
+        }
+    }
+
+    private void deleteOrphanedSpoolFiles(List<ExtractionJob> unfinished) {
+        Set<Path> owned = new HashSet<>();
+        unfinished.forEach(job -> owned.add(Path.of(job.getSpoolPath())));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(jobDirectory, "*.pdf")) {
+            for (Path file : files) {
+                if (!owned.contains(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean up extraction job directory {}", jobDirectory, e);
+        }
+    }
+
+    private void purgeExpired() {
+        repository.deleteFinishedBefore(LocalDateTime.now().minus(retention));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.EHR.service;
+
+import com.example.EHR.repository.MedicalReportRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fills {@code aadhaarLast4} for reports stored before the column existed. Runs once at startup, walks the
+ * table in id order in small transactions, and is a no-op once every row has been backfilled.
+ */
+@Component
+public class MaskedAadhaarBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(MaskedAadhaarBackfill.class);
+    private static final int CHUNK_SIZE = 500;
+
+    private final MedicalReportRepository repository;
+    private final AadhaarEncryptionService aadhaarEncryptionService;
+    private final TransactionTemplate transactionTemplate;
+    private final PatientListingCache listingCache;
+
+    public MaskedAadhaarBackfill(MedicalReportRepository repository,
+                                 AadhaarEncryptionService aadhaarEncryptionService,
+                                 TransactionTemplate transactionTemplate,
+                                 PatientListingCache listingCache) {
+        this.repository = repository;
+        this.aadhaarEncryptionService = aadhaarEncryptionService;
+        this.transactionTemplate = transactionTemplate;
+        this.listingCache = listingCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long afterId = 0;
+        long updated = 0;
+        while (true) {
+            final long cursor = afterId;
+            List<Object[]> rows = repository.findUnmaskedAfter(cursor, Limit.of(CHUNK_SIZE));
+            if (rows.isEmpty()) {
+                break;
+            }
+            // Listings show the masked number, so the patients touched are evicted once the chunk commits
+            Set<String> patientIdHashes = new HashSet<>();
+            Integer chunkUpdated = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Object[] row : rows) {
+                    try {
+                        String aadhaar = aadhaarEncryptionService.decrypt((String) row[1]);
+                        count += repository.updateAadhaarLast4((Long) row[0], aadhaarEncryptionService.lastFour(aadhaar));
+                        patientIdHashes.add(aadhaarEncryptionService.hashAadhaar(aadhaar));
+                    } catch (RuntimeException e) {
+                        // Undecryptable row: leave it unmasked rather than failing startup
+                    }
+                }
+                return count;
+            });
+            patientIdHashes.forEach(listingCache::evict);
+            updated += chunkUpdated != null ? chunkUpdated : 0;
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+        }
+        if (updated > 0) {
+            log.info("Backfilled masked Aadhaar for {} reports", updated);
+        }
+    }
+}
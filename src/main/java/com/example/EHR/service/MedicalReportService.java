@@ -1,39 +1,133 @@
 package com.example.EHR.service;
 
+import com.example.EHR.model.BatchUploadResult;
+import com.example.EHR.model.CursorPage;
 import com.example.EHR.model.MedicalReport;
+import com.example.EHR.model.MedicalReportSummary;
+import com.example.EHR.model.OriginalFile;
+import com.example.EHR.model.ReportContent;
+import com.example.EHR.model.ReportPage;
 import com.example.EHR.repository.MedicalReportRepository;
+import com.example.EHR.repository.ReportContentRepository;
+import com.example.EHR.repository.ReportFilter;
+import com.example.EHR.repository.ReportPageRepository;
+import com.example.EHR.service.UploadMetrics.Stage;
+import com.example.EHR.text.NormalizingWriter;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.security.DigestInputStream;
-import java.security.MessageDigest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
-import java.util.HexFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 
 @Service
 public class MedicalReportService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    public static final int MAX_PAGE_RANGE = 50;
+    // Presizing the text buffers from the page count avoids regrowth copies; capped so a huge page count
+    // cannot reserve memory up front
+    private static final int EXPECTED_CHARS_PER_PAGE = 3000;
+    private static final int MAX_PRESIZED_CHARS = 4 * 1024 * 1024;
+
     private final MedicalReportRepository repository;
+    private final ReportContentRepository contentRepository;
+    private final ReportPageRepository pageRepository;
     private final long maxFileSize;
     private final AadhaarEncryptionService aadhaarEncryptionService;
+    private final PdfTextExtractor textExtractor;
+    private final ObservationExtractionService observationExtractionService;
+    private final ReportSearchService searchService;
+    private final PatientListingCache listingCache;
+    private final VitalsTimeSeriesStore vitalsStore;
+    private final PdfContentStore pdfStore;
+    private final PdfParseLimiter parseLimiter;
+    private final ParseMemoryBudget memoryBudget;
+    private final UploadMetrics metrics;
+    private final TaskExecutor extractionExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final Path spoolDirectory;
+    // Uploads between storing their PDF and the outcome of their insert, by checksum; see releaseFile
+    private final ConcurrentMap<String, Integer> filesInFlight = new ConcurrentHashMap<>();
 
     public MedicalReportService(MedicalReportRepository repository,
+                                ReportContentRepository contentRepository,
+                                ReportPageRepository pageRepository,
                                 AadhaarEncryptionService aadhaarEncryptionService,
-                                @Value("${app.upload.max-size:52428800}") long maxFileSize) {
+                                PdfTextExtractor textExtractor,
+                                ObservationExtractionService observationExtractionService,
+                                ReportSearchService searchService,
+                                PatientListingCache listingCache,
+                                VitalsTimeSeriesStore vitalsStore,
+                                PdfContentStore pdfStore,
+                                PdfParseLimiter parseLimiter,
+                                ParseMemoryBudget memoryBudget,
+                                UploadMetrics metrics,
+                                @Qualifier("extractionExecutor") TaskExecutor extractionExecutor,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${app.upload.max-size:52428800}") long maxFileSize,
+                                @Value("${app.upload.spool-dir:${java.io.tmpdir}}") String spoolDir) {
         this.repository = repository;
+        this.contentRepository = contentRepository;
+        this.pageRepository = pageRepository;
         this.aadhaarEncryptionService = aadhaarEncryptionService;
+        this.textExtractor = textExtractor;
+        this.observationExtractionService = observationExtractionService;
+        this.searchService = searchService;
+        this.listingCache = listingCache;
+        this.vitalsStore = vitalsStore;
+        this.pdfStore = pdfStore;
+        this.parseLimiter = parseLimiter;
+        this.memoryBudget = memoryBudget;
+        this.metrics = metrics;
+        this.extractionExecutor = extractionExecutor;
+        this.transactionTemplate = transactionTemplate;
         this.maxFileSize = maxFileSize;
+        try {
+            this.spoolDirectory = Files.createDirectories(Path.of(spoolDir));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create upload spool directory " + spoolDir, e);
+        }
     }
 
     public MedicalReport upload(MultipartFile file, String uploadedBy, String patientId, String reportType, LocalDateTime reportDate) {
+        try (SpooledUpload upload = spool(file)) {
+            return ingest(upload, uploadedBy, patientId, reportType, reportDate);
+        }
+    }
+
+    /**
+     * Validates the upload and spools it to disk. The caller owns the returned upload and must close it
+     * once {@link #ingest} has run.
+     */
+    public SpooledUpload spool(MultipartFile file) {
         // Basic validation
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File is required");
@@ -42,98 +136,493 @@ public class MedicalReportService {
             throw new IllegalArgumentException("File too large. Max size: " + (maxFileSize / 1024 / 1024) + "MB");
         }
 
-        // Encrypt patientId (which is Aadhaar) before storing
-        String encryptedPatientId = null;
-        String patientIdHash = null;
-        if (patientId != null && !patientId.isBlank()) {
-            encryptedPatientId = aadhaarEncryptionService.encrypt(patientId);
-            patientIdHash = aadhaarEncryptionService.hashAadhaar(patientId);
-        }
-
-
         // Check file extension
         String filename = file.getOriginalFilename();
         if (filename == null || !filename.toLowerCase().endsWith(".pdf")) {
             throw new IllegalArgumentException("Only PDF files are allowed");
         }
 
-        String checksum = sha256(file);
-        String extracted = "";
-        int pageCount = 0;
+        // Spool to disk once, hashing on the way, so the PDF never sits on the heap as a byte[]
+        try {
+            return SpooledUpload.spool(file, spoolDirectory, UploadMetrics.currentRole());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read uploaded file", e);
+        }
+    }
+
+    /**
+     * Extracts (or reuses) the content of a spooled upload and saves the report.
+     */
+    public MedicalReport ingest(SpooledUpload upload, String uploadedBy, String patientId, String reportType, LocalDateTime reportDate) {
+        return ingest(upload, uploadedBy, patientId, reportType, reportDate, Function.identity());
+    }
 
+    /**
+     * Like {@link #ingest(SpooledUpload, String, String, String, LocalDateTime)}, additionally running
+     * {@code inTransaction} on the saved report in the transaction that inserts it, so the caller's own
+     * writes commit together with the report or not at all. Extraction happens before that transaction.
+     */
+    public <T> T ingest(SpooledUpload upload, String uploadedBy, String patientId, String reportType,
+                        LocalDateTime reportDate, Function<MedicalReport, T> inTransaction) {
+        MedicalReport report = prepare(upload, uploadedBy, patientId, reportType, reportDate);
+        long start = System.nanoTime();
+        MedicalReport[] saved = new MedicalReport[1];
+        T result;
         try {
-            byte[] bytes = file.getBytes();
-            try (PDDocument doc = Loader.loadPDF(bytes)) {
-                pageCount = doc.getNumberOfPages();
-                PDFTextStripper stripper = new PDFTextStripper();
-                extracted = stripper.getText(doc);
-            }
-        } catch (Exception e) {
-            // If PDF parsing fails, still save the file but with empty text
-            extracted = "";
-            pageCount = 0;
+            result = insert(report, upload.getUploaderRole(), inserted -> {
+                saved[0] = inserted;
+                return inTransaction.apply(inserted);
+            });
+        } catch (RuntimeException e) {
+            releaseFile(upload.getChecksum(), false);
+            throw e;
         }
+        releaseFile(upload.getChecksum(), true);
+        metrics.recordStage(Stage.SAVE, upload.getUploaderRole(), System.nanoTime() - start);
+        listingCache.evict(saved[0].getPatientIdHash());
+        searchService.index(saved[0]);
+        vitalsStore.add(saved[0]);
+        return result;
+    }
 
-        String normalized = normalizeText(extracted);
+    /**
+     * Uploads several files at once. Files are extracted concurrently on the extraction pool and the
+     * resulting reports are inserted together, so Hibernate can send them as JDBC batches. A file that
+     * fails validation or extraction is reported in its result without affecting the others.
+     *
+     * @param patientIds either one patient id for every file, or one per file in the same order
+     */
+    public List<BatchUploadResult> uploadBatch(List<MultipartFile> files, String uploadedBy, List<String> patientIds,
+                                               String reportType, LocalDateTime reportDate) {
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("At least one file is required");
+        }
+        if (patientIds.size() != 1 && patientIds.size() != files.size()) {
+            throw new IllegalArgumentException("Provide one patientId for all files or one per file");
+        }
+
+        List<SpooledUpload> spooled = new ArrayList<>(files.size());
+        List<CompletableFuture<MedicalReport>> pending = new ArrayList<>(files.size());
+        BatchUploadResult[] results = new BatchUploadResult[files.size()];
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                MultipartFile file = files.get(i);
+                String patientId = patientIds.get(patientIds.size() == 1 ? 0 : i);
+                try {
+                    SpooledUpload upload = spool(file);
+                    spooled.add(upload);
+                    pending.add(prepareAsync(upload, uploadedBy, patientId, reportType, reportDate));
+                } catch (RuntimeException e) {
+                    results[i] = BatchUploadResult.failed(file.getOriginalFilename(), e.getMessage());
+                    pending.add(null);
+                }
+            }
 
-        MedicalReport report = new MedicalReport();
-        report.setOriginalFileName(filename);
-        report.setFileName(filename);
-        report.setFileSize(file.getSize());
-        report.setMimeType("application/pdf");
-        report.setChecksum(checksum);
-        report.setExtractedText(extracted);
-        report.setNormalizedText(normalized);
-        report.setUploadedBy(uploadedBy);
-        report.setPageCount(pageCount);
-        report.setPatientId(encryptedPatientId);
-        report.setPatientIdHash(patientIdHash);
-        report.setReportType(reportType);
-        report.setReportDate(reportDate);
+            List<MedicalReport> prepared = new ArrayList<>(files.size());
+            List<Integer> preparedIndexes = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                CompletableFuture<MedicalReport> future = pending.get(i);
+                if (future == null) {
+                    continue;
+                }
+                try {
+                    prepared.add(future.join());
+                    preparedIndexes.add(i);
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    results[i] = BatchUploadResult.failed(files.get(i).getOriginalFilename(), cause.getMessage());
+                }
+            }
 
-        return repository.save(report);
+            long start = System.nanoTime();
+            List<MedicalReport> saved = saveAll(prepared);
+            if (!prepared.isEmpty()) {
+                // One sample per batch: the rows go out together, so there is no per-report save time
+                metrics.recordStage(Stage.SAVE, UploadMetrics.currentRole(), System.nanoTime() - start);
+            }
+            for (int j = 0; j < saved.size(); j++) {
+                int i = preparedIndexes.get(j);
+                MedicalReport report = saved.get(j);
+                releaseFile(prepared.get(j).getChecksum(), report != null);
+                if (report != null) {
+                    listingCache.evict(report.getPatientIdHash());
+                    searchService.index(report);
+                    vitalsStore.add(report);
+                }
+                results[i] = report != null
+                        ? BatchUploadResult.saved(report.getFileName(), report)
+                        : BatchUploadResult.failed(files.get(i).getOriginalFilename(), "Failed to save report");
+            }
+            return List.of(results);
+        } finally {
+            spooled.forEach(SpooledUpload::close);
+        }
     }
 
+    /**
+     * Loads the report and its content by id, so both come from the second-level cache once warm.
+     * Hibernate evicts the cached report when it is deleted.
+     */
+    @Transactional(readOnly = true)
     public MedicalReport getById(Long id) {
-        return repository.findById(id).orElseThrow(() -> new IllegalArgumentException("Report not found"));
+        return findById(id).orElseThrow(() -> new IllegalArgumentException("Report not found"));
+    }
+
+    /**
+     * The report with its content loaded, or empty if it does not exist (or has been deleted).
+     */
+    public Optional<MedicalReport> findById(Long id) {
+        Optional<MedicalReport> report = repository.findById(id);
+        report.ifPresent(r -> Hibernate.initialize(r.getContent()));
+        return report;
     }
 
     public void deleteById(Long id) {
+        List<String> patientIdHashes = repository.findPatientIdHashById(id);
         repository.deleteById(id);
+        patientIdHashes.forEach(listingCache::evict);
+        searchService.remove(id);
+        patientIdHashes.forEach(hash -> vitalsStore.removeReport(hash, id));
     }
 
-    public List<MedicalReport> listByPatientId(String aadhaarPlain) {
+    public CursorPage<MedicalReportSummary> listByPatientId(String aadhaarPlain, ReportFilter filter, String cursor, int limit) {
+        filter.setPatientIdHash(aadhaarEncryptionService.hashAadhaar(aadhaarPlain));
+        return list(filter, cursor, limit);
+    }
+
+    /**
+     * Keyset-paginated listing, newest first. Pass the previous page's {@code nextCursor} to continue.
+     * Listings of one patient are served from {@link PatientListingCache} once read.
+     */
+    public CursorPage<MedicalReportSummary> list(ReportFilter filter, String cursor, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        if (cursor != null && !cursor.isBlank()) {
+            applyCursor(cursor, filter);
+        }
+
+        // Fetch one extra row to learn whether another page exists
+        List<MedicalReportSummary> rows = findSummaries(filter, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<MedicalReportSummary> items = rows.subList(0, pageSize);
+        MedicalReportSummary last = items.get(pageSize - 1);
+        return new CursorPage<>(items, encodeCursor(last));
+    }
+
+    public Optional<ReportContent> findContent(Long reportId) {
+        return repository.findContentByReportId(reportId);
+    }
+
+    /**
+     * Page count of the report's content, 0 when the PDF could not be parsed.
+     */
+    public Optional<Integer> findPageCount(Long reportId) {
+        return repository.findPageCountById(reportId).stream().findFirst();
+    }
+
+    /**
+     * Pages {@code from} to {@code to} (inclusive, 1-based) of a report, reading and decoding only those
+     * pages. Pages outside the document are simply absent from the result.
+     */
+    public List<ReportPage> getPages(Long reportId, int from, int to) {
+        if (from < 1 || to < from) {
+            throw new IllegalArgumentException("Invalid page range");
+        }
+        if (to - from >= MAX_PAGE_RANGE) {
+            throw new IllegalArgumentException("At most " + MAX_PAGE_RANGE + " pages per request");
+        }
+        return pageRepository.findPages(reportId, from, to);
+    }
+
+    /**
+     * The original PDF of a report, if the report exists and its file is in the store.
+     */
+    public Optional<OriginalFile> findOriginalFile(Long reportId) {
+        return repository.findFileKeyById(reportId).stream().findFirst()
+                .flatMap(row -> pdfStore.find((String) row[0])
+                        .map(path -> new OriginalFile(path, (String) row[0], (String) row[1])));
+    }
+
+    public boolean exists(Long id) {
+        return repository.existsById(id);
+    }
+
+    /**
+     * Whether the report belongs to the patient with the given Aadhaar. Compares hashes only, so neither
+     * the report text nor the encrypted patient id is loaded.
+     */
+    public boolean isOwnedBy(Long reportId, String aadhaarPlain) {
+        if (!AadhaarEncryptionService.isValidAadhaar(aadhaarPlain)) {
+            return false;
+        }
         String patientIdHash = aadhaarEncryptionService.hashAadhaar(aadhaarPlain);
-        return repository.findByPatientIdHash(patientIdHash);
+        return repository.findPatientIdHashById(reportId).stream().anyMatch(h -> Objects.equals(h, patientIdHash));
     }
 
+    private List<MedicalReportSummary> findSummaries(ReportFilter filter, int limit) {
+        if (filter.getPatientIdHash() == null) {
+            return repository.findSummaries(filter, limit);
+        }
+        PatientListingCache.Listings listings = listingCache.forPatient(filter.getPatientIdHash());
+        List<Object> key = Arrays.asList(filter.getReportType(), filter.getUploadedBy(), filter.getReportDateFrom(),
+                filter.getReportDateTo(), filter.getAfterUploadedAt(), filter.getAfterId(), limit);
+        List<MedicalReportSummary> rows = listings.get(key);
+        if (rows == null) {
+            rows = repository.findSummaries(filter, limit);
+            listings.put(key, rows);
+        }
+        return rows;
+    }
+
+    private static String encodeCursor(MedicalReportSummary last) {
+        String position = last.getUploadedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
 
-    public List<MedicalReport> listAll() {
-        return repository.findAll();
+    private static void applyCursor(String cursor, ReportFilter filter) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = position.indexOf('|');
+            filter.setAfter(LocalDateTime.parse(position.substring(0, sep)), Long.parseLong(position.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 
-    private String sha256(MultipartFile file) {
-        try (InputStream in = file.getInputStream()) {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] buffer = new byte[8192];
-            int read;
-            while ((read = in.read(buffer)) != -1) {
-                md.update(buffer, 0, read);
+    private MedicalReport prepare(SpooledUpload upload, String uploadedBy, String patientId, String reportType, LocalDateTime reportDate) {
+        String role = upload.getUploaderRole();
+        metrics.recordStage(Stage.SPOOL, role, upload.getSpoolNanos());
+        metrics.recordIngested(reportType, role, upload.getSize());
+
+        // Encrypt patientId (which is Aadhaar) before storing
+        String encryptedPatientId = null;
+        String patientIdHash = null;
+        String aadhaarLast4 = null;
+        if (patientId != null && !patientId.isBlank()) {
+            long start = System.nanoTime();
+            encryptedPatientId = aadhaarEncryptionService.encrypt(patientId);
+            patientIdHash = aadhaarEncryptionService.hashAadhaar(patientId);
+            aadhaarLast4 = aadhaarEncryptionService.lastFour(patientId);
+            metrics.recordStage(Stage.ENCRYPTION, role, System.nanoTime() - start);
+        }
+
+        // Identical bytes were already extracted: link to the existing content instead of parsing again
+        ReportContent content = contentRepository.findByChecksum(upload.getChecksum()).orElse(null);
+        if (content != null) {
+            metrics.recordDedupHit(reportType, role);
+        } else {
+            content = extractContent(upload, reportType);
+        }
+        // Released by whoever inserts the report, once the insert has committed or failed
+        pinFile(upload.getChecksum());
+        try {
+            long storeStart = System.nanoTime();
+            try {
+                pdfStore.store(upload.getChecksum(), upload.getPath());
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to store uploaded file", e);
+            }
+            metrics.recordStage(Stage.STORE, role, System.nanoTime() - storeStart);
+
+            MedicalReport report = new MedicalReport();
+            report.setOriginalFileName(upload.getOriginalFilename());
+            report.setFileName(upload.getOriginalFilename());
+            report.setFileSize(upload.getSize());
+            report.setMimeType("application/pdf");
+            report.setChecksum(upload.getChecksum());
+            report.setContent(content);
+            report.setUploadedBy(uploadedBy);
+            report.setPatientId(encryptedPatientId);
+            report.setPatientIdHash(patientIdHash);
+            report.setAadhaarLast4(aadhaarLast4);
+            report.setReportType(reportType);
+            report.setReportDate(reportDate);
+            // Persisted with the report (cascade) so vitals queries never re-parse the text
+            observationExtractionService.extract(content.getNormalizedText()).forEach(report::addObservation);
+            return report;
+        } catch (RuntimeException e) {
+            releaseFile(upload.getChecksum(), false);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<MedicalReport> prepareAsync(SpooledUpload upload, String uploadedBy, String patientId,
+                                                          String reportType, LocalDateTime reportDate) {
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> prepare(upload, uploadedBy, patientId, reportType, reportDate), extractionExecutor);
+        } catch (RejectedExecutionException e) {
+            // Pool is saturated: do the work on the request thread rather than failing the file
+            try {
+                return CompletableFuture.completedFuture(prepare(upload, uploadedBy, patientId, reportType, reportDate));
+            } catch (RuntimeException failure) {
+                return CompletableFuture.failedFuture(failure);
             }
-            return HexFormat.of().formatHex(md.digest());
-        } catch (Exception e) {
-            return "unknown";
         }
     }
 
-    private String normalizeText(String text) {
-        if (text == null) return "";
-        String s = text.replace('\u2013', '-')
-                .replace('\u2014', '-')
-                .replace('\u2212', '-')
-                .replace('\r', ' ')
-                .replace('\t', ' ');
-        s = s.replaceAll("[ ]+", " ").trim();
-        return s;
+    /**
+     * Inserts all reports, with their new contents, in one transaction so they go out as JDBC batches. If
+     * the batch fails, falls back to saving one by one so a single bad row only loses its own report
+     * (returned as null); its content is rolled back with it.
+     */
+    private List<MedicalReport> saveAll(List<MedicalReport> reports) {
+        if (reports.isEmpty()) {
+            return reports;
+        }
+        String role = UploadMetrics.currentRole();
+        // Files of one batch with the same new bytes share one content row
+        Map<String, ReportContent> newContents = new HashMap<>();
+        for (MedicalReport report : reports) {
+            if (report.getContent().getId() == null) {
+                ReportContent first = newContents.putIfAbsent(report.getChecksum(), report.getContent());
+                if (first != null) {
+                    report.setContent(first);
+                }
+            }
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                reports.forEach(report -> persistContent(report.getContent(), role));
+                return repository.saveAll(reports);
+            });
+        } catch (RuntimeException batchFailure) {
+            newContents.values().forEach(MedicalReportService::resetIds);
+            List<MedicalReport> saved = new ArrayList<>(reports.size());
+            for (MedicalReport report : reports) {
+                resetIds(report, false);
+                try {
+                    saved.add(insert(report, role, Function.identity()));
+                } catch (RuntimeException e) {
+                    saved.add(null);
+                }
+            }
+            return saved;
+        }
+    }
+
+    /**
+     * Inserts the report, and its content if that is new, in one transaction that also runs
+     * {@code inTransaction}. Losing the content insert to a concurrent upload of the same bytes links the
+     * report to that upload's content instead.
+     */
+    private <T> T insert(MedicalReport report, String role, Function<MedicalReport, T> inTransaction) {
+        boolean newContent = report.getContent().getId() == null;
+        try {
+            return transactionTemplate.execute(status -> {
+                persistContent(report.getContent(), role);
+                return inTransaction.apply(repository.save(report));
+            });
+        } catch (RuntimeException e) {
+            resetIds(report, newContent);
+            ReportContent existing = newContent && e instanceof DataIntegrityViolationException
+                    ? contentRepository.findByChecksum(report.getChecksum()).orElse(null) : null;
+            if (existing == null) {
+                throw e;
+            }
+            report.setContent(existing);
+            return transactionTemplate.execute(status -> inTransaction.apply(repository.save(report)));
+        }
+    }
+
+    private void persistContent(ReportContent content, String role) {
+        if (content.getId() == null) {
+            long start = System.nanoTime();
+            contentRepository.save(content);
+            metrics.recordStage(Stage.CONTENT_SAVE, role, System.nanoTime() - start);
+        }
+    }
+
+    // A rolled-back insert leaves its generated ids on the entities; clear them so they are inserted afresh
+    private static void resetIds(MedicalReport report, boolean newContent) {
+        report.setId(null);
+        report.getObservations().forEach(o -> o.setId(null));
+        if (newContent) {
+            resetIds(report.getContent());
+        }
+    }
+
+    private static void resetIds(ReportContent content) {
+        content.setId(null);
+        content.getPages().forEach(page -> page.setId(null));
+    }
+
+    private void pinFile(String checksum) {
+        filesInFlight.merge(checksum, 1, Integer::sum);
+    }
+
+    /**
+     * Ends an upload's claim on its stored PDF. If the report was not inserted, the file is deleted unless
+     * another upload of the same bytes is still in flight or a report refers to it. Runs under the map's
+     * lock for the checksum, so no upload can pin the file between the check and the delete.
+     */
+    private void releaseFile(String checksum, boolean inserted) {
+        filesInFlight.compute(checksum, (key, pins) -> {
+            if (pins == 1 && !inserted && !repository.existsByChecksum(key)) {
+                try {
+                    pdfStore.delete(key);
+                } catch (IOException e) {
+                    // Left in place; a later upload of the same bytes reuses it
+                }
+            }
+            return pins == 1 ? null : pins - 1;
+        });
+    }
+
+    private ReportContent extractContent(SpooledUpload upload, String reportType) {
+        String role = upload.getUploaderRole();
+        String extracted = "";
+        String normalized = "";
+        int[] pageEnds = null;
+        int pageCount = 0;
+
+        File source = upload.getPath().toFile();
+        long waitStart = System.nanoTime();
+        try (ParseMemoryBudget.Reservation memory = memoryBudget.reserve(upload.getSize());
+             PdfParseLimiter.Permit permit = parseLimiter.acquire()) {
+            long start = System.nanoTime();
+            metrics.recordStage(Stage.PARSE_WAIT, role, start - waitStart);
+            try (PDDocument doc = Loader.loadPDF(new RandomAccessReadBufferedFile(source))) {
+                long loaded = System.nanoTime();
+                metrics.recordStage(Stage.PDF_LOAD, role, loaded - start);
+                pageCount = doc.getNumberOfPages();
+                memory.addPages(pageCount);
+                NormalizingWriter text = new NormalizingWriter(true,
+                        (int) Math.min((long) pageCount * EXPECTED_CHARS_PER_PAGE, MAX_PRESIZED_CHARS));
+                // Extra range workers each need a parse slot and their own copy of the document; use only
+                // what is free right now rather than wait for it
+                try (PdfParseLimiter.Permit helpers = parseLimiter.tryAcquire(textExtractor.rangeWorkers(pageCount) - 1)) {
+                    helpers.trim(memory.tryAddDocumentCopies(helpers.getSlots()));
+                    pageEnds = textExtractor.extractText(doc, source, text, 1 + helpers.getSlots());
+                }
+                extracted = text.getRawText();
+                normalized = text.getNormalizedText();
+                metrics.recordStage(Stage.EXTRACTION, role, System.nanoTime() - loaded);
+                metrics.recordParsed(reportType, role, pageCount);
+            } catch (ParseCapacityExceededException e) {
+                throw e;
+            } catch (Exception e) {
+                // If PDF parsing fails, still save the file but with empty text
+                metrics.recordParseFailure(reportType, role);
+                extracted = "";
+                normalized = "";
+                pageEnds = null;
+                pageCount = 0;
+            }
+        }
+
+        ReportContent content = new ReportContent();
+        content.setChecksum(upload.getChecksum());
+        content.setFileSize(upload.getSize());
+        content.setExtractedText(extracted, normalized);
+        content.setPageCount(pageCount);
+        if (pageEnds != null && pageEnds.length == pageCount) {
+            content.setPageEnds(pageEnds);
+        }
+
+        // Not saved here: it is inserted in the report's transaction, so a report that fails to save
+        // leaves no content behind
+        return content;
     }
 }
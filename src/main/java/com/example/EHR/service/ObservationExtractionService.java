@@ -1,45 +1,54 @@
 package com.example.EHR.service;
 
 import com.example.EHR.model.Observation;
+import com.example.EHR.model.Observation.Type;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 @Service
 public class ObservationExtractionService {
 
-    private static final Pattern BP_PATTERN = Pattern.compile("(?:BP|Blood Pressure)[:\u2013\u2014\u2212-]?\\s*(\\d{2,3})\\s*/\\s*(\\d{2,3})", Pattern.CASE_INSENSITIVE);
-    private static final Pattern HR_PATTERN = Pattern.compile("(?:HR|Heart Rate|Pulse)[:\u2013\u2014\u2212-]?\\s*(\\d{2,3})\\s*(?:bpm)?", Pattern.CASE_INSENSITIVE);
-    private static final Pattern TEMP_PATTERN = Pattern.compile("(?:Temp|Temperature)[:\u2013\u2014\u2212-]?\\s*(\\d{2,3}\\.\\d|\\d{2,3})", Pattern.CASE_INSENSITIVE);
+    private static final ObservationScanner SCANNER = new ObservationScanner(labels());
 
-    public List<Observation> extractObservations(String text) {
-        List<Observation> observations = new ArrayList<>();
+    /**
+     * Extracts all recognised observations in one pass over the text, in document order.
+     */
+    public List<Observation> extract(String text) {
         if (text == null || text.isBlank()) {
-            return observations;
-        }
-
-        Matcher bpMatcher = BP_PATTERN.matcher(text);
-        while (bpMatcher.find()) {
-            String systolic = bpMatcher.group(1);
-            String diastolic = bpMatcher.group(2);
-            observations.add(new Observation("Blood Pressure", systolic + "/" + diastolic));
-        }
-
-        Matcher hrMatcher = HR_PATTERN.matcher(text);
-        while (hrMatcher.find()) {
-            String hr = hrMatcher.group(1);
-            observations.add(new Observation("Heart Rate", hr));
-        }
-
-        Matcher tempMatcher = TEMP_PATTERN.matcher(text);
-        while (tempMatcher.find()) {
-            String temp = tempMatcher.group(1);
-            observations.add(new Observation("Temperature", temp));
+            return new ArrayList<>();
         }
+        return SCANNER.scan(text);
+    }
 
-        return observations;
+    private static Map<String, Type> labels() {
+        Map<String, Type> labels = new LinkedHashMap<>();
+        labels.put("bp", Type.BLOOD_PRESSURE);
+        labels.put("blood pressure", Type.BLOOD_PRESSURE);
+        labels.put("hr", Type.HEART_RATE);
+        labels.put("heart rate", Type.HEART_RATE);
+        labels.put("pulse", Type.HEART_RATE);
+        labels.put("temp", Type.TEMPERATURE);
+        labels.put("temperature", Type.TEMPERATURE);
+        labels.put("glucose", Type.GLUCOSE);
+        labels.put("blood glucose", Type.GLUCOSE);
+        labels.put("sugar", Type.GLUCOSE);
+        labels.put("blood sugar", Type.GLUCOSE);
+        labels.put("fbs", Type.GLUCOSE);
+        labels.put("rbs", Type.GLUCOSE);
+        labels.put("ppbs", Type.GLUCOSE);
+        labels.put("hba1c", Type.HBA1C);
+        labels.put("a1c", Type.HBA1C);
+        labels.put("glycated hemoglobin", Type.HBA1C);
+        labels.put("hb", Type.HEMOGLOBIN);
+        labels.put("hgb", Type.HEMOGLOBIN);
+        labels.put("hemoglobin", Type.HEMOGLOBIN);
+        labels.put("haemoglobin", Type.HEMOGLOBIN);
+        labels.put("cholesterol", Type.CHOLESTEROL);
+        labels.put("total cholesterol", Type.CHOLESTEROL);
+        return labels;
     }
 }
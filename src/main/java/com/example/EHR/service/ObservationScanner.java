@@ -0,0 +1,236 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.Observation;
+import com.example.EHR.model.Observation.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass observation scanner. Analyte labels are compiled into a case-insensitive trie that is
+ * walked from each word start, so the text is traversed once and the per-character cost is bounded by
+ * the longest label rather than by the number of analytes. When a label matches, the value and unit
+ * are parsed in place directly after it.
+ */
+final class ObservationScanner {
+
+    private static final int MAX_SEPARATOR_GAP = 6;
+    private static final double GLUCOSE_MMOL_TO_MG = 18.0;
+    private static final double CHOLESTEROL_MMOL_TO_MG = 38.67;
+
+    private enum Unit {
+        MMHG("mmhg"), MMOL_L("mmol/l"), MG_DL("mg/dl"), G_DL("g/dl"), BPM("bpm"), PERCENT("%"),
+        CELSIUS("\u00B0c"), FAHRENHEIT("\u00B0f");
+
+        private final String token;
+
+        Unit(String token) {
+            this.token = token;
+        }
+    }
+
+    private static final Unit[] UNITS = Unit.values();
+
+    private static final class Node {
+        final Node[] next = new Node[128];
+        Type type;
+    }
+
+    private final Node root = new Node();
+
+    ObservationScanner(Map<String, Type> labels) {
+        labels.forEach((label, type) -> {
+            Node node = root;
+            for (int i = 0; i < label.length(); i++) {
+                int c = fold(label.charAt(i));
+                if (c < 0) {
+                    throw new IllegalArgumentException("Unsupported character in label: " + label);
+                }
+                if (node.next[c] == null) {
+                    node.next[c] = new Node();
+                }
+                node = node.next[c];
+            }
+            node.type = type;
+        });
+    }
+
+    List<Observation> scan(String text) {
+        List<Observation> observations = new ArrayList<>();
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            if (i > 0 && Character.isLetterOrDigit(text.charAt(i - 1))) {
+                i++;
+                continue;
+            }
+            // Longest label starting here that also ends on a word boundary, so "HbA1c" never matches "Hb"
+            Type type = null;
+            int labelEnd = -1;
+            Node node = root;
+            for (int j = i; j < length; j++) {
+                int c = fold(text.charAt(j));
+                if (c < 0 || (node = node.next[c]) == null) {
+                    break;
+                }
+                if (node.type != null && (j + 1 == length || !Character.isLetter(text.charAt(j + 1)))) {
+                    type = node.type;
+                    labelEnd = j + 1;
+                }
+            }
+            if (type == null) {
+                i++;
+                continue;
+            }
+            int next = parseValue(text, labelEnd, type, observations);
+            i = next > 0 ? next : labelEnd;
+        }
+        return observations;
+    }
+
+    /**
+     * Parses the value following a label and appends the observation; returns the index after what
+     * was consumed, or -1 when no well-formed value follows.
+     */
+    private static int parseValue(String text, int pos, Type type, List<Observation> out) {
+        int length = text.length();
+        int gap = 0;
+        while (pos < length && gap < MAX_SEPARATOR_GAP && isSeparator(text.charAt(pos))) {
+            pos++;
+            gap++;
+        }
+
+        if (type == Type.BLOOD_PRESSURE) {
+            int systolicEnd = digitsEnd(text, pos);
+            if (systolicEnd - pos < 2 || systolicEnd - pos > 3) {
+                return -1;
+            }
+            int slash = skipSpaces(text, systolicEnd);
+            if (slash >= length || text.charAt(slash) != '/') {
+                return -1;
+            }
+            int diastolicStart = skipSpaces(text, slash + 1);
+            int diastolicEnd = digitsEnd(text, diastolicStart);
+            if (diastolicEnd - diastolicStart < 2 || diastolicEnd - diastolicStart > 3) {
+                return -1;
+            }
+            out.add(Observation.bloodPressure(parseInt(text, pos, systolicEnd), parseInt(text, diastolicStart, diastolicEnd)));
+            int unitStart = skipSpaces(text, diastolicEnd);
+            return unitAt(text, unitStart) == Unit.MMHG ? unitStart + Unit.MMHG.token.length() : diastolicEnd;
+        }
+
+        int intEnd = digitsEnd(text, pos);
+        if (intEnd == pos || intEnd - pos > 6) {
+            return -1;
+        }
+        long mantissa = parseInt(text, pos, intEnd);
+        int end = intEnd;
+        int scale = 0;
+        if (end + 1 < length && text.charAt(end) == '.' && isDigit(text.charAt(end + 1))) {
+            int fractionEnd = Math.min(digitsEnd(text, end + 1), end + 1 + 4);
+            for (int k = end + 1; k < fractionEnd; k++) {
+                mantissa = mantissa * 10 + (text.charAt(k) - '0');
+                scale++;
+            }
+            end = digitsEnd(text, fractionEnd);
+        }
+        double value = mantissa / Math.pow(10, scale);
+
+        int unitStart = skipSpaces(text, end);
+        Unit unit = unitAt(text, unitStart);
+        Observation observation = normalize(type, value, unit);
+        if (observation == null) {
+            return -1;
+        }
+        out.add(observation);
+        return unit != null ? unitStart + unit.token.length() : end;
+    }
+
+    /**
+     * Converts to the canonical unit for the type; returns null when the unit does not fit the analyte.
+     */
+    private static Observation normalize(Type type, double value, Unit unit) {
+        switch (type) {
+            case HEART_RATE:
+                return unit == null || unit == Unit.BPM ? new Observation(type, value, "bpm") : null;
+            case TEMPERATURE:
+                if (unit == Unit.CELSIUS || (unit == null && value < 50)) {
+                    return new Observation(type, value, "\u00B0C");
+                }
+                return unit == null || unit == Unit.FAHRENHEIT ? new Observation(type, value, "\u00B0F") : null;
+            case GLUCOSE:
+                return toMgPerDl(type, value, unit, GLUCOSE_MMOL_TO_MG);
+            case CHOLESTEROL:
+                return toMgPerDl(type, value, unit, CHOLESTEROL_MMOL_TO_MG);
+            case HBA1C:
+                return unit == null || unit == Unit.PERCENT ? new Observation(type, value, "%") : null;
+            case HEMOGLOBIN:
+                return unit == null || unit == Unit.G_DL ? new Observation(type, value, "g/dL") : null;
+            default:
+                return null;
+        }
+    }
+
+    private static Observation toMgPerDl(Type type, double value, Unit unit, double mmolFactor) {
+        if (unit == Unit.MMOL_L) {
+            return new Observation(type, Math.round(value * mmolFactor * 10) / 10.0, "mg/dL");
+        }
+        return unit == null || unit == Unit.MG_DL ? new Observation(type, value, "mg/dL") : null;
+    }
+
+    private static Unit unitAt(String text, int pos) {
+        for (Unit unit : UNITS) {
+            int end = pos + unit.token.length();
+            if (text.regionMatches(true, pos, unit.token, 0, unit.token.length())
+                    && (end == text.length() || !Character.isLetter(text.charAt(end)))) {
+                return unit;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lower-cases ASCII letters and maps any whitespace to a single space; -1 for characters no label uses.
+     */
+    private static int fold(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c + ('a' - 'A');
+        }
+        if (Character.isWhitespace(c)) {
+            return ' ';
+        }
+        return c < 128 ? c : -1;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == ':' || c == '=' || c == '-' || c == '\u2013' || c == '\u2014' || c == '\u2212'
+                || Character.isWhitespace(c);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int digitsEnd(String text, int pos) {
+        while (pos < text.length() && isDigit(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipSpaces(String text, int pos) {
+        while (pos < text.length() && text.charAt(pos) == ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int parseInt(String text, int start, int end) {
+        int value = 0;
+        for (int k = start; k < end; k++) {
+            value = value * 10 + (text.charAt(k) - '0');
+        }
+        return value;
+    }
+}
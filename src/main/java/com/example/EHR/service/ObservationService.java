@@ -0,0 +1,83 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.Observation;
+import com.example.EHR.model.ReportObservation;
+import com.example.EHR.model.VitalsTrend;
+import com.example.EHR.repository.ReportObservationRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Queries over the observations persisted at ingest, so vitals lookups never re-parse report text.
+ */
+@Service
+public class ObservationService {
+
+    private static final int MAX_RESULTS = 1000;
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final ReportObservationRepository repository;
+    private final AadhaarEncryptionService aadhaarEncryptionService;
+    private final VitalsTimeSeriesStore vitalsStore;
+
+    public ObservationService(ReportObservationRepository repository, AadhaarEncryptionService aadhaarEncryptionService,
+                              VitalsTimeSeriesStore vitalsStore) {
+        this.repository = repository;
+        this.aadhaarEncryptionService = aadhaarEncryptionService;
+        this.vitalsStore = vitalsStore;
+    }
+
+    /**
+     * A patient's observations, newest first, optionally limited to one analyte.
+     */
+    public List<ReportObservation> forPatient(String aadhaarPlain, Observation.Type analyte,
+                                              LocalDateTime from, LocalDateTime to, int limit) {
+        String patientIdHash = aadhaarEncryptionService.hashAadhaar(aadhaarPlain);
+        if (analyte == null) {
+            return repository.findAllForPatient(patientIdHash, orEarliest(from), orLatest(to), toLimit(limit));
+        }
+        return repository.findForPatient(patientIdHash, analyte, orEarliest(from), orLatest(to), toLimit(limit));
+    }
+
+    /**
+     * Observations of one analyte across all patients, newest first, optionally within a value range.
+     */
+    public List<ReportObservation> forAnalyte(Observation.Type analyte, Double min, Double max,
+                                              LocalDateTime from, LocalDateTime to, int limit) {
+        if (analyte == null) {
+            throw new IllegalArgumentException("analyte is required");
+        }
+        return repository.findForAnalyte(analyte,
+                min != null ? min : -Double.MAX_VALUE,
+                max != null ? max : Double.MAX_VALUE,
+                orEarliest(from), orLatest(to), toLimit(limit));
+    }
+
+    /**
+     * Min/max/avg/last of one analyte for a patient, served from the in-memory time-series store.
+     */
+    public VitalsTrend trend(String aadhaarPlain, Observation.Type analyte, LocalDateTime from, LocalDateTime to,
+                             Duration bucket) {
+        if (analyte == null) {
+            throw new IllegalArgumentException("analyte is required");
+        }
+        return vitalsStore.trend(aadhaarEncryptionService.hashAadhaar(aadhaarPlain), analyte, from, to, bucket);
+    }
+
+    private static Limit toLimit(int limit) {
+        return Limit.of(Math.min(Math.max(limit, 1), MAX_RESULTS));
+    }
+
+    private static LocalDateTime orEarliest(LocalDateTime from) {
+        return from != null ? from : EARLIEST;
+    }
+
+    private static LocalDateTime orLatest(LocalDateTime to) {
+        return to != null ? to : LATEST;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.EHR.service;
+
+/**
+ * Thrown when an upload cannot be admitted for parsing because the parse memory budget stayed exhausted
+ * for longer than the configured wait. Controllers answer with 503 and a {@code Retry-After} hint.
+ */
+public class ParseCapacityExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ParseCapacityExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
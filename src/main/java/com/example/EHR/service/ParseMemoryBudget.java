@@ -0,0 +1,185 @@
+package com.example.EHR.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for PDF parsing against a global heap budget.
+ * <p>
+ * Each parse reserves an estimate of the memory it will need: a multiple of the file size before the
+ * document is opened, topped up per page once the page count is known. Reservations come from a fair
+ * semaphore counted in KiB, so new uploads are admitted in arrival order. An upload that cannot get its
+ * reservation within {@code max-wait}, or arrives while {@code max-queued} uploads are already waiting,
+ * is rejected with {@link ParseCapacityExceededException} instead of risking an OutOfMemoryError. A single
+ * estimate larger than the whole budget is clamped to it, so such a file still parses, just alone.
+ * <p>
+ * Only admission waits. The per-page top-up of a parse that is already running never blocks: the uploads
+ * queued behind it may hold the memory it needs while they wait for a parse slot, so it goes over budget
+ * instead, and new uploads are not admitted until enough has been released.
+ */
+@Component
+public class ParseMemoryBudget {
+
+    // PDFBox keeps the parsed object graph on heap; observed at roughly 2-4x the file size
+    static final int FILE_SIZE_FACTOR = 3;
+    // Extracted text plus per-page content stream and font state
+    static final long BYTES_PER_PAGE = 256 * 1024;
+
+    private final int budgetKb;
+    private final long maxWaitNanos;
+    private final int maxQueued;
+    private final Budget available;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public ParseMemoryBudget(@Value("${app.extraction.memory.budget:#{null}}") DataSize budget,
+                             @Value("${app.extraction.memory.max-wait:PT10S}") Duration maxWait,
+                             @Value("${app.extraction.memory.max-queued:100}") int maxQueued,
+                             MeterRegistry registry) {
+        // Default: a quarter of the max heap
+        long budgetBytes = budget != null ? budget.toBytes() : Runtime.getRuntime().maxMemory() / 4;
+        this.budgetKb = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetBytes / 1024));
+        this.maxWaitNanos = maxWait.toNanos();
+        this.maxQueued = maxQueued;
+        this.available = new Budget(budgetKb);
+
+        Gauge.builder("ehr.parse.memory.budget", () -> budgetKb * 1024.0).baseUnit("bytes")
+                .description("Heap budget for concurrent PDF parsing").register(registry);
+        Gauge.builder("ehr.parse.memory.reserved", () -> (budgetKb - available.availablePermits()) * 1024.0)
+                .baseUnit("bytes").description("Heap currently reserved by running parses").register(registry);
+        Gauge.builder("ehr.parse.memory.queue", available, Semaphore::getQueueLength)
+                .description("Uploads waiting for parse memory").register(registry);
+        this.waitTimer = Timer.builder("ehr.parse.memory.wait")
+                .description("Time uploads waited for parse memory, including rejected ones")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rejected = Counter.builder("ehr.parse.memory.rejected")
+                .description("Uploads rejected because the parse memory budget stayed exhausted")
+                .register(registry);
+    }
+
+    /**
+     * Reserves memory for parsing a file of the given size, waiting up to {@code max-wait}.
+     *
+     * @throws ParseCapacityExceededException if the budget does not free up in time or too many uploads wait
+     */
+    public Reservation reserve(long fileSize) {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        Reservation reservation = new Reservation(fileSize, deadline);
+        reservation.grow((long) FILE_SIZE_FACTOR * fileSize);
+        reservation.admitted = true;
+        return reservation;
+    }
+
+    private static int toKb(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, (bytes + 1023) / 1024);
+    }
+
+    private ParseCapacityExceededException rejection() {
+        rejected.increment();
+        return new ParseCapacityExceededException("Server is busy parsing other uploads, retry later",
+                Math.max(1, TimeUnit.NANOSECONDS.toSeconds(maxWaitNanos)));
+    }
+
+    private static final class Budget extends Semaphore {
+
+        Budget(int kb) {
+            super(kb, true);
+        }
+
+        // Takes permits without waiting, leaving fewer than zero available if need be
+        void overdraw(int kb) {
+            reducePermits(kb);
+        }
+    }
+
+    /**
+     * Memory held by one parse; close it when the parse is done.
+     */
+    public final class Reservation implements AutoCloseable {
+
+        private final long fileSize;
+        private final long deadline;
+        private int heldKb;
+        private boolean admitted;
+
+        private Reservation(long fileSize, long deadline) {
+            this.fileSize = fileSize;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Adds the per-page estimate once the page count is known. Does not wait; see the class comment.
+         */
+        public void addPages(int pageCount) {
+            grow(BYTES_PER_PAGE * pageCount);
+        }
+
+        /**
+         * Reserves up to {@code max} more copies of the document, for page-range workers that each open
+         * their own. Takes only memory that is free right now, and none while uploads are waiting for it.
+         *
+         * @return how many copies were reserved
+         */
+        public int tryAddDocumentCopies(int max) {
+            int kb = toKb((long) FILE_SIZE_FACTOR * fileSize);
+            int copies = 0;
+            while (copies < max && kb <= budgetKb - heldKb && !available.hasQueuedThreads() && available.tryAcquire(kb)) {
+                heldKb += kb;
+                copies++;
+            }
+            return copies;
+        }
+
+        private void grow(long bytes) {
+            int kb = Math.min(toKb(bytes), budgetKb - heldKb);
+            if (kb <= 0) {
+                return;
+            }
+            if (admitted) {
+                // A parse already under way jumps the queue: finishing it is what frees memory for the rest
+                if (!available.tryAcquire(kb)) {
+                    available.overdraw(kb);
+                }
+                heldKb += kb;
+                return;
+            }
+            if (available.getQueueLength() >= maxQueued) {
+                throw rejection();
+            }
+            long start = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = available.tryAcquire(kb, Math.max(0, deadline - start), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Interrupted while waiting for parse memory", e);
+            } finally {
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (!acquired) {
+                close();
+                throw rejection();
+            }
+            heldKb += kb;
+        }
+
+        @Override
+        public void close() {
+            if (heldKb > 0) {
+                available.release(heldKb);
+                heldKb = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.MedicalReportSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-patient report listings, kept in process and evicted for exactly the patient whose reports change,
+ * so an upload or delete for one patient leaves every other patient's cached listings in place.
+ * <p>
+ * A reader takes the patient's {@link Listings} before it queries and stores its result there. Eviction
+ * detaches that object from the cache, so a result read before a write committed ends up in a detached
+ * object and is never served; writers therefore evict after their transaction commits.
+ * <p>
+ * The patients live in the {@value #REGION} Ehcache region (see {@code ehcache.xml}), which bounds their
+ * number, drops the least recently used when full and expires idle ones; its {@code cache.*} metrics are
+ * tagged {@code cacheManager=listings}. Each patient keeps its {@code maxEntriesPerPatient} most recently
+ * used listings. {@code ehr.listings.gets} counts listing lookups by {@code result} (hit or miss).
+ */
+@Component
+public class PatientListingCache implements MeterBinder {
+
+    public static final String REGION = "patientListings";
+
+    private final Cache<String, Listings> byPatient;
+    private final int maxEntriesPerPatient;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public PatientListingCache(CacheManager hibernateCacheManager,
+                               @Value("${app.cache.listings.max-entries-per-patient:16}") int maxEntriesPerPatient) {
+        this(hibernateCacheManager.getCache(REGION, String.class, Listings.class), maxEntriesPerPatient);
+    }
+
+    PatientListingCache(Cache<String, Listings> byPatient, int maxEntriesPerPatient) {
+        if (byPatient == null) {
+            throw new IllegalStateException("Cache region " + REGION + " is not configured");
+        }
+        if (maxEntriesPerPatient < 1) {
+            throw new IllegalArgumentException("Listing cache needs a positive size");
+        }
+        this.byPatient = byPatient;
+        this.maxEntriesPerPatient = maxEntriesPerPatient;
+    }
+
+    /**
+     * The patient's cached listings. Take it before querying, so a concurrent eviction discards the result.
+     */
+    public Listings forPatient(String patientIdHash) {
+        Listings listings = byPatient.get(patientIdHash);
+        if (listings != null) {
+            return listings;
+        }
+        Listings created = new Listings(maxEntriesPerPatient, hits, misses);
+        if (byPatient.putIfAbsent(patientIdHash, created)) {
+            return created;
+        }
+        listings = byPatient.get(patientIdHash);
+        // Evicted again in between: the detached holder still works, its results are just not kept
+        return listings != null ? listings : created;
+    }
+
+    /**
+     * Drops every cached listing of the patient. Call once the change to its reports is committed.
+     */
+    public void evict(String patientIdHash) {
+        if (patientIdHash != null) {
+            byPatient.remove(patientIdHash);
+        }
+    }
+
+    int size(String patientIdHash) {
+        Listings listings = byPatient.get(patientIdHash);
+        return listings != null ? listings.size() : 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        JCacheMetrics.monitor(registry, byPatient, Tags.of("cacheManager", "listings"));
+        FunctionCounter.builder("ehr.listings.gets", hits, LongAdder::sum)
+                .description("Listing lookups served from the per-patient cache")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("ehr.listings.gets", misses, LongAdder::sum)
+                .description("Listing lookups that had to query the database")
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    /**
+     * One patient's listings, keyed by everything that shapes the result: filters, keyset position and limit.
+     */
+    public static final class Listings {
+
+        private final Map<List<Object>, List<MedicalReportSummary>> results;
+        private final LongAdder hits;
+        private final LongAdder misses;
+
+        private Listings(int maxEntries, LongAdder hits, LongAdder misses) {
+            // Access order, so the least recently used listing goes first once the patient is full
+            this.results = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, List<MedicalReportSummary>> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        public synchronized List<MedicalReportSummary> get(List<Object> key) {
+            List<MedicalReportSummary> rows = results.get(key);
+            (rows != null ? hits : misses).increment();
+            return rows;
+        }
+
+        public synchronized void put(List<Object> key, List<MedicalReportSummary> rows) {
+            results.put(key, List.copyOf(rows));
+        }
+
+        synchronized int size() {
+            return results.size();
+        }
+    }
+}
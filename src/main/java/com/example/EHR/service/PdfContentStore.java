@@ -0,0 +1,91 @@
+package com.example.EHR.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Content-addressable store for original PDFs, keyed by SHA-256 checksum and sharded two levels deep
+ * ({@code ab/cd/abcd....pdf}) to keep directories small. Files are immutable once written: a file is
+ * only ever published complete, via a hard link or an atomic rename, so readers never see partial data
+ * and identical uploads share one file.
+ */
+@Component
+public class PdfContentStore {
+
+    private final Path root;
+
+    public PdfContentStore(@Value("${app.storage.pdf-dir:${java.io.tmpdir}/ehr-pdf-store}") String rootDir) {
+        try {
+            this.root = Files.createDirectories(Path.of(rootDir)).toAbsolutePath();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create PDF store directory " + rootDir, e);
+        }
+    }
+
+    /**
+     * Stores the file at {@code source} under its checksum unless that content is already present.
+     * The source is left in place for its owner to delete.
+     */
+    public Path store(String checksum, Path source) throws IOException {
+        Path target = pathFor(checksum);
+        if (Files.exists(target)) {
+            return target;
+        }
+        Files.createDirectories(target.getParent());
+        force(source);
+        try {
+            // Same filesystem: publish the spooled file itself, no bytes copied
+            Files.createLink(target, source);
+            return target;
+        } catch (FileAlreadyExistsException e) {
+            return target;
+        } catch (IOException | UnsupportedOperationException e) {
+            // Different filesystem or no hard-link support: copy next to the target, then rename
+        }
+
+        Path temp = Files.createTempFile(target.getParent(), checksum, ".tmp");
+        try {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            force(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            return target;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Removes the file for a checksum. Only for content no report refers to; callers make sure no upload of
+     * the same bytes is in flight.
+     */
+    public void delete(String checksum) throws IOException {
+        Files.deleteIfExists(pathFor(checksum));
+    }
+
+    public Optional<Path> find(String checksum) {
+        Path path = pathFor(checksum);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private Path pathFor(String checksum) {
+        if (checksum == null || !checksum.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Invalid checksum");
+        }
+        return root.resolve(checksum.substring(0, 2)).resolve(checksum.substring(2, 4)).resolve(checksum + ".pdf");
+    }
+
+    private static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+}
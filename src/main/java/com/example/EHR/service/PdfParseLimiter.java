@@ -0,0 +1,77 @@
+package com.example.EHR.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps how many threads run PDFBox load and extraction at once. That section is CPU-bound, so once
+ * request and extraction work runs on virtual threads nothing else stops hundreds of parses from
+ * oversubscribing the cores; the default allows one per available processor. Waiters queue fairly.
+ * Extra page-range workers of a large document take slots too, but only ones that are free.
+ */
+@Component
+public class PdfParseLimiter {
+
+    private final Semaphore permits;
+
+    public PdfParseLimiter(@Value("${app.extraction.max-concurrent-parses:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int maxConcurrentParses) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrentParses), true);
+    }
+
+    /**
+     * Blocks until a parse slot is free; close the returned permit to give it back.
+     *
+     * @throws IllegalStateException if interrupted while waiting
+     */
+    public Permit acquire() {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a PDF parse slot", e);
+        }
+        return new Permit(1);
+    }
+
+    /**
+     * Takes up to {@code max} slots that are free right now, for a parse that can use more than one thread.
+     * Takes none while uploads are waiting for a slot.
+     */
+    public Permit tryAcquire(int max) {
+        int slots = 0;
+        while (slots < max && !permits.hasQueuedThreads() && permits.tryAcquire()) {
+            slots++;
+        }
+        return new Permit(slots);
+    }
+
+    public final class Permit implements AutoCloseable {
+
+        private int slots;
+
+        private Permit(int slots) {
+            this.slots = slots;
+        }
+
+        public int getSlots() {
+            return slots;
+        }
+
+        /**
+         * Gives back all but {@code keep} slots now.
+         */
+        public void trim(int keep) {
+            if (keep < slots) {
+                permits.release(slots - Math.max(0, keep));
+                slots = Math.max(0, keep);
+            }
+        }
+
+        @Override
+        public void close() {
+            trim(0);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.EHR.service;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Extracts PDF text. Documents with at least {@code min-pages} pages are split into page ranges that a few
+ * workers strip in parallel, written out in page order; smaller documents use a single sequential pass
+ * that streams straight into the target writer.
+ * <p>
+ * PDDocument is not thread-safe. The calling thread works through ranges with the document it already
+ * has open, and every other worker opens one copy of its own from the spooled file, so a parse with
+ * {@code n} workers holds {@code n} documents in memory and uses {@code n} cores. Callers pass the number
+ * of workers they have budgeted for.
+ */
+@Component
+public class PdfTextExtractor {
+
+    private final boolean parallelEnabled;
+    private final int parallelMinPages;
+    private final int pagesPerTask;
+    private final int threads;
+    private final ExecutorService pool;
+
+    public PdfTextExtractor(@Value("${app.extraction.parallel.enabled:true}") boolean parallelEnabled,
+                            @Value("${app.extraction.parallel.min-pages:64}") int parallelMinPages,
+                            @Value("${app.extraction.parallel.pages-per-task:16}") int pagesPerTask,
+                            @Value("${app.extraction.parallel.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads) {
+        this.parallelEnabled = parallelEnabled;
+        this.parallelMinPages = parallelMinPages;
+        this.pagesPerTask = Math.max(1, pagesPerTask);
+        this.threads = Math.max(1, threads);
+        this.pool = Executors.newFixedThreadPool(this.threads, r -> {
+            Thread thread = new Thread(r, "pdf-range-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * How many workers, including the caller, a document with this many pages can use; 1 means the
+     * sequential path.
+     */
+    public int rangeWorkers(int pages) {
+        if (!parallelEnabled || pages < parallelMinPages) {
+            return 1;
+        }
+        return Math.min(threads, ranges(pages));
+    }
+
+    /**
+     * @param doc    the already opened document, used by the calling thread
+     * @param source the file {@code doc} was loaded from, opened once by each extra worker
+     */
+    public String extractText(PDDocument doc, File source) throws IOException {
+        StringWriter out = new StringWriter();
+        extractText(doc, source, out);
+        return out.toString();
+    }
+
+    /**
+     * Writes the document text to {@code out} instead of building it as one string, with as many workers
+     * as the document can use.
+     *
+     * @return for each page, the number of chars written to {@code out} up to the end of that page
+     */
+    public int[] extractText(PDDocument doc, File source, Writer out) throws IOException {
+        return extractText(doc, source, out, rangeWorkers(doc.getNumberOfPages()));
+    }
+
+    /**
+     * Like {@link #extractText(PDDocument, File, Writer)}, with at most {@code workers} threads (the caller
+     * included) and so at most {@code workers - 1} extra copies of the document.
+     */
+    public int[] extractText(PDDocument doc, File source, Writer out, int workers) throws IOException {
+        int pages = doc.getNumberOfPages();
+        workers = Math.min(workers, rangeWorkers(pages));
+        if (workers <= 1) {
+            return new PageTrackingStripper(pages).strip(doc, out);
+        }
+
+        Chunk[] chunks = new Chunk[ranges(pages)];
+        AtomicInteger nextRange = new AtomicInteger();
+        List<Future<?>> helpers = new ArrayList<>(workers - 1);
+        for (int i = 1; i < workers; i++) {
+            helpers.add(pool.submit(() -> {
+                // Started after the caller took the last range: no need to open a copy
+                if (nextRange.get() >= chunks.length) {
+                    return null;
+                }
+                try (PDDocument copy = Loader.loadPDF(new RandomAccessReadBufferedFile(source))) {
+                    stripRanges(copy, pages, nextRange, chunks);
+                }
+                return null;
+            }));
+        }
+
+        Throwable failure = null;
+        try {
+            stripRanges(doc, pages, nextRange, chunks);
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            nextRange.set(chunks.length);
+        }
+        // Always wait, so no copy of the document outlives the caller's memory reservation
+        boolean interrupted = false;
+        for (Future<?> helper : helpers) {
+            while (true) {
+                try {
+                    helper.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    nextRange.set(chunks.length);
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    nextRange.set(chunks.length);
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            if (failure == null) {
+                failure = new InterruptedIOException("Interrupted while extracting text");
+            }
+        }
+        if (failure instanceof IOException e) {
+            throw e;
+        }
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Text extraction failed", failure);
+        }
+
+        int[] pageEnds = new int[pages];
+        int page = 0;
+        int offset = 0;
+        for (Chunk chunk : chunks) {
+            out.write(chunk.text);
+            for (int end : chunk.pageEnds) {
+                pageEnds[page++] = offset + end;
+            }
+            offset += chunk.text.length();
+        }
+        return pageEnds;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private int ranges(int pages) {
+        return (pages + pagesPerTask - 1) / pagesPerTask;
+    }
+
+    /**
+     * Strips ranges off the shared counter until none are left.
+     */
+    private void stripRanges(PDDocument doc, int pages, AtomicInteger nextRange, Chunk[] chunks) throws IOException {
+        int range;
+        while ((range = nextRange.getAndIncrement()) < chunks.length) {
+            int startPage = range * pagesPerTask + 1;
+            int endPage = Math.min(pages, startPage + pagesPerTask - 1);
+            PageTrackingStripper stripper = new PageTrackingStripper(endPage - startPage + 1);
+            stripper.setStartPage(startPage);
+            stripper.setEndPage(endPage);
+            StringWriter text = new StringWriter();
+            int[] pageEnds = stripper.strip(doc, text);
+            chunks[range] = new Chunk(text.toString(), pageEnds);
+        }
+    }
+
+    private record Chunk(String text, int[] pageEnds) {
+    }
+
+    /**
+     * Notes how many chars had been written when each page ended. PDFBox skips pages without a content
+     * stream altogether (no startPage/endPage), so pages are placed by their page number, and a skipped page
+     * ends where the page before it did.
+     */
+    private static final class PageTrackingStripper extends PDFTextStripper {
+
+        private final int[] pageEnds;
+        private int recorded;
+        private CountingWriter counter;
+
+        PageTrackingStripper(int pages) {
+            this.pageEnds = new int[pages];
+        }
+
+        int[] strip(PDDocument doc, Writer out) throws IOException {
+            counter = new CountingWriter(out);
+            writeText(doc, counter);
+            endSkippedPages(pageEnds.length);
+            return pageEnds;
+        }
+
+        @Override
+        protected void endPage(PDPage pdPage) throws IOException {
+            super.endPage(pdPage);
+            int index = getCurrentPageNo() - getStartPage();
+            if (index >= recorded && index < pageEnds.length) {
+                endSkippedPages(index);
+                pageEnds[index] = counter.count;
+                recorded = index + 1;
+            }
+        }
+
+        private void endSkippedPages(int upTo) {
+            int end = recorded > 0 ? pageEnds[recorded - 1] : 0;
+            while (recorded < upTo) {
+                pageEnds[recorded++] = end;
+            }
+        }
+    }
+
+    private static final class CountingWriter extends Writer {
+
+        private final Writer out;
+        int count;
+
+        CountingWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() {
+            // The caller owns the target writer
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.MedicalReport;
+import com.example.EHR.repository.MedicalReportRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes reports as newline-delimited JSON straight from a database cursor. Each row is detached once
+ * written, so memory stays flat however many rows are exported.
+ * <p>
+ * Incremental exports use {@code uploadedAt} as their watermark. It is stamped when the row is inserted,
+ * after extraction, so only a row whose insert transaction is still open while an export runs can commit
+ * with an {@code uploadedAt} below that export's last row. Those transactions hold little more than the
+ * insert, so a client should pass its last seen {@code uploadedAt} minus a few seconds as the next
+ * {@code since} and skip ids it already has; it then misses nothing unless an insert stays uncommitted
+ * for longer than that overlap.
+ */
+@Service
+public class ReportExportService {
+
+    private static final int FLUSH_EVERY = 100;
+
+    private final MedicalReportRepository repository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public ReportExportService(MedicalReportRepository repository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param since only reports inserted strictly after this instant; null exports everything
+     * @return number of reports written
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(LocalDateTime since, OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<MedicalReport> rows = since == null
+                ? repository.streamAllWithContent()
+                : repository.streamWithContentUploadedAfter(since);
+             JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.setRootValueSeparator(null);
+
+            Iterator<MedicalReport> it = rows.iterator();
+            while (it.hasNext()) {
+                MedicalReport report = it.next();
+                writeReport(gen, report);
+                gen.writeRaw('\n');
+
+                entityManager.detach(report.getContent());
+                entityManager.detach(report);
+                if (++count % FLUSH_EVERY == 0) {
+                    gen.flush();
+                }
+            }
+            gen.flush();
+        }
+        return count;
+    }
+
+    private static void writeReport(JsonGenerator gen, MedicalReport report) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("id", report.getId());
+        gen.writeStringField("fileName", report.getFileName());
+        gen.writeStringField("originalFileName", report.getOriginalFileName());
+        gen.writeNumberField("fileSize", report.getFileSize());
+        gen.writeStringField("mimeType", report.getMimeType());
+        gen.writeStringField("checksum", report.getChecksum());
+        writeDateField(gen, "uploadedAt", report.getUploadedAt());
+        gen.writeStringField("uploadedBy", report.getUploadedBy());
+        gen.writeStringField("reportType", report.getReportType());
+        writeDateField(gen, "reportDate", report.getReportDate());
+        gen.writeStringField("patientIdHash", report.getPatientIdHash());
+        if (report.getPageCount() != null) {
+            gen.writeNumberField("pageCount", report.getPageCount());
+        } else {
+            gen.writeNullField("pageCount");
+        }
+        gen.writeStringField("extractedText", report.getExtractedText());
+        gen.writeStringField("normalizedText", report.getNormalizedText());
+        gen.writeEndObject();
+    }
+
+    private static void writeDateField(JsonGenerator gen, String name, LocalDateTime value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(name, value.toString());
+        } else {
+            gen.writeNullField(name);
+        }
+    }
+}
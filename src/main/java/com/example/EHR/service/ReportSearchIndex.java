@@ -0,0 +1,891 @@
+package com.example.EHR.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory positional inverted index over report text with BM25 ranking.
+ * <p>
+ * Reports get dense internal document numbers in insertion order, so every posting list is append-only
+ * and sorted; boolean queries are sorted-array merges and phrases are verified against stored positions.
+ * Deletes set a tombstone and are compacted away once they make up a quarter of the index. Each document
+ * keeps its patient hash for access filtering and a fingerprint of its content checksum so the index can
+ * be reconciled against the database after a restart. Every patient also has the sorted list of its
+ * documents; a patient-scoped query starts from that list and probes the postings for it, so its cost
+ * follows the patient's report count rather than how many reports contain the terms. When the page boundaries of a report are known, the
+ * token position at which each page ends is kept too, so hits can name the pages their terms occur on.
+ * <p>
+ * Thread-safe: tokenization runs outside the lock, mutations take the write lock and queries the read lock.
+ * Snapshots are serialized to memory under the read lock and written to disk after releasing it.
+ */
+final class ReportSearchIndex {
+
+    private static final int SNAPSHOT_MAGIC = 0x45485253;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final int MIN_DELETES_BEFORE_COMPACTION = 1024;
+    private static final int MAX_HIT_PAGES = 20;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    interface TokenConsumer {
+        void accept(String term, int position);
+    }
+
+    static final class Hit {
+        private static final int[] NO_PAGES = new int[0];
+
+        private final long reportId;
+        private final double score;
+        private final int[] pages;
+
+        Hit(long reportId, double score) {
+            this(reportId, score, NO_PAGES);
+        }
+
+        Hit(long reportId, double score, int[] pages) {
+            this.reportId = reportId;
+            this.score = score;
+            this.pages = pages;
+        }
+
+        long getReportId() {
+            return reportId;
+        }
+
+        double getScore() {
+            return score;
+        }
+
+        /**
+         * 1-based pages on which the scoring terms occur, ascending and capped at {@value #MAX_HIT_PAGES};
+         * empty when the report's pages are unknown.
+         */
+        int[] getPages() {
+            return pages;
+        }
+    }
+
+    static final class Result {
+        private final List<Hit> hits;
+        private final int totalHits;
+
+        Result(List<Hit> hits, int totalHits) {
+            this.hits = hits;
+            this.totalHits = totalHits;
+        }
+
+        List<Hit> getHits() {
+            return hits;
+        }
+
+        int getTotalHits() {
+            return totalHits;
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Postings for one term: parallel doc/freq arrays plus all positions, with {@code posStart[i]} the
+     * offset of document i's positions.
+     */
+    private static final class Postings {
+        int[] docs = new int[2];
+        int[] freqs = new int[2];
+        int[] posStart = new int[3];
+        int[] positions = new int[4];
+        int size;
+
+        void append(int doc, int[] docPositions, int from, int count) {
+            if (size + 1 >= posStart.length) {
+                int capacity = Math.max(4, size * 2);
+                docs = Arrays.copyOf(docs, capacity);
+                freqs = Arrays.copyOf(freqs, capacity);
+                posStart = Arrays.copyOf(posStart, capacity + 1);
+            }
+            int start = posStart[size];
+            if (start + count > positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(start + count, positions.length * 2));
+            }
+            System.arraycopy(docPositions, from, positions, start, count);
+            docs[size] = doc;
+            freqs[size] = count;
+            posStart[size + 1] = start + count;
+            size++;
+        }
+
+        int indexOf(int doc, int fromIndex) {
+            return Arrays.binarySearch(docs, fromIndex, size, doc);
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final Map<Long, Integer> docByReport = new HashMap<>();
+    private final Map<String, String> patientHashes = new HashMap<>();
+    // Document numbers of each patient, ascending and including tombstones
+    private final Map<String, IntList> docsByPatient = new HashMap<>();
+    private long[] reportIds = new long[1024];
+    private long[] fingerprints = new long[1024];
+    private int[] docLengths = new int[1024];
+    private String[] docPatients = new String[1024];
+    // Token position at which each page ends, or null when the report was indexed without page boundaries
+    private int[][] docPageEnds = new int[1024][];
+    private BitSet deleted = new BitSet();
+    private int docCount;
+    private int liveDocs;
+    private long liveLength;
+
+    /**
+     * Lower-cases and splits on anything that is not a letter or digit, emitting each token with its
+     * ordinal position. Tokens longer than {@value #MAX_TOKEN_LENGTH} characters are dropped.
+     */
+    static void tokenize(String text, TokenConsumer consumer) {
+        if (text == null) {
+            return;
+        }
+        tokenize(text, 0, text.length(), 0, consumer);
+    }
+
+    /**
+     * Tokenizes {@code text[from, to)}, numbering tokens from {@code position}. A token never spans the range
+     * end. Returns the position following the last token.
+     */
+    private static int tokenize(String text, int from, int to, int position, TokenConsumer consumer) {
+        StringBuilder token = new StringBuilder(MAX_TOKEN_LENGTH);
+        for (int i = from; i <= to; i++) {
+            char c = i < to ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+                continue;
+            }
+            if (token.length() > 0) {
+                if (token.length() <= MAX_TOKEN_LENGTH) {
+                    consumer.accept(token.toString(), position);
+                }
+                position++;
+                token.setLength(0);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * First 64 bits of a hex SHA-256 checksum, used to detect documents whose content changed.
+     */
+    static long fingerprint(String checksum) {
+        return checksum != null && checksum.length() >= 16 ? Long.parseUnsignedLong(checksum.substring(0, 16), 16) : 0L;
+    }
+
+    /**
+     * Indexes a report. Adding a report id that is already present is a no-op.
+     */
+    void add(long reportId, long fingerprint, String patientIdHash, String text) {
+        add(reportId, fingerprint, patientIdHash, text, null);
+    }
+
+    /**
+     * Indexes a report whose page boundaries are known.
+     *
+     * @param pageEnds char offset into {@code text} at which each page ends; ignored (no page numbers on
+     *                 hits) if null or not ending at the end of the text
+     */
+    void add(long reportId, long fingerprint, String patientIdHash, String text, int[] pageEnds) {
+        Map<String, IntList> docTerms = new LinkedHashMap<>();
+        int[] length = new int[1];
+        TokenConsumer collect = (term, position) -> {
+            docTerms.computeIfAbsent(term, t -> new IntList()).add(position);
+            length[0] = position + 1;
+        };
+        int[] tokenPageEnds = null;
+        if (text != null && pageEnds != null && pageEnds.length > 0 && pageEnds[pageEnds.length - 1] == text.length()) {
+            tokenPageEnds = new int[pageEnds.length];
+            int start = 0;
+            int position = 0;
+            for (int page = 0; page < pageEnds.length; page++) {
+                int end = Math.max(start, pageEnds[page]);
+                position = tokenize(text, start, end, position, collect);
+                tokenPageEnds[page] = position;
+                start = end;
+            }
+        } else {
+            tokenize(text, collect);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (docByReport.containsKey(reportId)) {
+                return;
+            }
+            int doc = newDoc(reportId, fingerprint, patientIdHash, length[0], tokenPageEnds);
+            for (Map.Entry<String, IntList> entry : docTerms.entrySet()) {
+                IntList positions = entry.getValue();
+                terms.computeIfAbsent(entry.getKey(), t -> new Postings()).append(doc, positions.values, 0, positions.size);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean remove(long reportId) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docByReport.remove(reportId);
+            if (doc == null) {
+                return false;
+            }
+            deleted.set(doc);
+            liveDocs--;
+            liveLength -= docLengths[doc];
+            int deletedCount = docCount - liveDocs;
+            if (deletedCount >= MIN_DELETES_BEFORE_COMPACTION && deletedCount * 4 > docCount) {
+                compact();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Whether the report is indexed with the given content fingerprint and patient.
+     */
+    boolean matches(long reportId, long fingerprint, String patientIdHash) {
+        lock.readLock().lock();
+        try {
+            Integer doc = docByReport.get(reportId);
+            return doc != null && fingerprints[doc] == fingerprint && Objects.equals(docPatients[doc], patientIdHash);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of all indexed reports in ascending order.
+     */
+    long[] reportIds() {
+        lock.readLock().lock();
+        try {
+            long[] ids = new long[liveDocs];
+            int n = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (!deleted.get(doc)) {
+                    ids[n++] = reportIds[doc];
+                }
+            }
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a query and returns the top {@code limit} hits by BM25 score, newest report first on ties.
+     *
+     * @param patientIdHash when non-null, only reports of this patient are matched
+     */
+    Result search(String query, String patientIdHash, int limit) {
+        SearchQuery.Node root = SearchQuery.parse(query);
+        Set<String> scoringTerms = new LinkedHashSet<>();
+        collectScoringTerms(root, false, scoringTerms);
+        if (scoringTerms.isEmpty()) {
+            throw new IllegalArgumentException("Query needs at least one term that is not negated");
+        }
+
+        lock.readLock().lock();
+        try {
+            int[] scope = null;
+            if (patientIdHash != null) {
+                IntList patientDocs = docsByPatient.get(patientIdHash);
+                if (patientDocs == null) {
+                    return new Result(List.of(), 0);
+                }
+                scope = Arrays.copyOf(patientDocs.values, patientDocs.size);
+            }
+            int[] matches = evaluate(root, scope);
+            int count = 0;
+            for (int doc : matches) {
+                if (!deleted.get(doc)) {
+                    matches[count++] = doc;
+                }
+            }
+            if (count == 0) {
+                return new Result(List.of(), 0);
+            }
+
+            double[] scores = new double[count];
+            double avgLength = liveDocs > 0 ? Math.max(1.0, (double) liveLength / liveDocs) : 1.0;
+            for (String term : scoringTerms) {
+                Postings postings = terms.get(term);
+                if (postings == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (liveDocs - postings.size + 0.5) / (postings.size + 0.5));
+                int from = 0;
+                for (int i = 0; i < count && from < postings.size; i++) {
+                    int idx = postings.indexOf(matches[i], from);
+                    if (idx < 0) {
+                        from = -idx - 1;
+                        continue;
+                    }
+                    double tf = postings.freqs[idx];
+                    double norm = K1 * (1 - B + B * docLengths[matches[i]] / avgLength);
+                    scores[i] += idf * tf * (K1 + 1) / (tf + norm);
+                    from = idx + 1;
+                }
+            }
+
+            Comparator<Hit> order = Comparator.comparingDouble(Hit::getScore).thenComparingLong(Hit::getReportId);
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(limit, count) + 1, order);
+            for (int i = 0; i < count; i++) {
+                if (top.size() < limit) {
+                    top.add(new Hit(reportIds[matches[i]], scores[i]));
+                } else if (scores[i] > top.peek().getScore()
+                        || (scores[i] == top.peek().getScore() && reportIds[matches[i]] > top.peek().getReportId())) {
+                    top.poll();
+                    top.add(new Hit(reportIds[matches[i]], scores[i]));
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(order.reversed());
+            for (int i = 0; i < hits.size(); i++) {
+                Hit hit = hits.get(i);
+                int doc = docByReport.get(hit.getReportId());
+                if (docPageEnds[doc] != null) {
+                    hits.set(i, new Hit(hit.getReportId(), hit.getScore(), pagesOf(doc, scoringTerms)));
+                }
+            }
+            return new Result(hits, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a compacted snapshot to a temporary file next to {@code target} and atomically moves it
+     * into place, so a crash mid-write leaves the previous snapshot intact. Only serializing to memory
+     * holds the read lock; uploads and deletes are not held up by the disk write.
+     */
+    void writeSnapshot(Path target) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 16);
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            writeTo(out);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                buffer.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Serializes the live documents and postings. Caller holds the read lock.
+     */
+    private void writeTo(DataOutputStream out) throws IOException {
+        int[] remap = liveRemap();
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(liveDocs);
+        for (int doc = 0; doc < docCount; doc++) {
+            if (remap[doc] < 0) {
+                continue;
+            }
+            out.writeLong(reportIds[doc]);
+            out.writeLong(fingerprints[doc]);
+            writeVarInt(out, docLengths[doc]);
+            out.writeBoolean(docPatients[doc] != null);
+            if (docPatients[doc] != null) {
+                out.writeUTF(docPatients[doc]);
+            }
+            int[] pageEnds = docPageEnds[doc];
+            writeVarInt(out, pageEnds != null ? pageEnds.length : 0);
+            if (pageEnds != null) {
+                int previousEnd = 0;
+                for (int end : pageEnds) {
+                    writeVarInt(out, end - previousEnd);
+                    previousEnd = end;
+                }
+            }
+        }
+
+        int termCount = 0;
+        for (Postings postings : terms.values()) {
+            if (liveCount(postings, remap) > 0) {
+                termCount++;
+            }
+        }
+        out.writeInt(termCount);
+        for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+            Postings postings = entry.getValue();
+            int live = liveCount(postings, remap);
+            if (live == 0) {
+                continue;
+            }
+            out.writeUTF(entry.getKey());
+            writeVarInt(out, live);
+            int previousDoc = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int doc = remap[postings.docs[i]];
+                if (doc < 0) {
+                    continue;
+                }
+                writeVarInt(out, doc - previousDoc);
+                previousDoc = doc;
+                writeVarInt(out, postings.freqs[i]);
+                int previousPosition = 0;
+                for (int p = postings.posStart[i]; p < postings.posStart[i + 1]; p++) {
+                    writeVarInt(out, postings.positions[p] - previousPosition);
+                    previousPosition = postings.positions[p];
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents of this index with a snapshot written by {@link #writeSnapshot}.
+     *
+     * @throws IOException if the file is missing, truncated or of another format version
+     */
+    void loadSnapshot(Path source) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported search index snapshot " + source);
+            }
+            ReportSearchIndex loaded = new ReportSearchIndex();
+            int docs = in.readInt();
+            for (int i = 0; i < docs; i++) {
+                long reportId = in.readLong();
+                long fingerprint = in.readLong();
+                int length = readVarInt(in);
+                String patient = in.readBoolean() ? in.readUTF() : null;
+                int pageCount = readVarInt(in);
+                int[] pageEnds = pageCount > 0 ? new int[pageCount] : null;
+                int end = 0;
+                for (int p = 0; p < pageCount; p++) {
+                    end += readVarInt(in);
+                    pageEnds[p] = end;
+                }
+                loaded.newDoc(reportId, fingerprint, patient, length, pageEnds);
+            }
+            int termCount = in.readInt();
+            int[] positions = new int[16];
+            for (int t = 0; t < termCount; t++) {
+                String term = in.readUTF();
+                int postingCount = readVarInt(in);
+                Postings postings = new Postings();
+                int doc = 0;
+                for (int i = 0; i < postingCount; i++) {
+                    doc += readVarInt(in);
+                    int freq = readVarInt(in);
+                    if (positions.length < freq) {
+                        positions = new int[Math.max(freq, positions.length * 2)];
+                    }
+                    int position = 0;
+                    for (int p = 0; p < freq; p++) {
+                        position += readVarInt(in);
+                        positions[p] = position;
+                    }
+                    if (doc >= docs) {
+                        throw new IOException("Corrupt search index snapshot " + source);
+                    }
+                    postings.append(doc, positions, 0, freq);
+                }
+                loaded.terms.put(term, postings);
+            }
+
+            lock.writeLock().lock();
+            try {
+                replaceWith(loaded);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private int newDoc(long reportId, long fingerprint, String patientIdHash, int length, int[] pageEnds) {
+        if (docCount == reportIds.length) {
+            int capacity = docCount * 2;
+            reportIds = Arrays.copyOf(reportIds, capacity);
+            fingerprints = Arrays.copyOf(fingerprints, capacity);
+            docLengths = Arrays.copyOf(docLengths, capacity);
+            docPatients = Arrays.copyOf(docPatients, capacity);
+            docPageEnds = Arrays.copyOf(docPageEnds, capacity);
+        }
+        int doc = docCount++;
+        reportIds[doc] = reportId;
+        fingerprints[doc] = fingerprint;
+        docLengths[doc] = length;
+        docPageEnds[doc] = pageEnds;
+        // Many reports share a patient: keep one String instance per hash
+        docPatients[doc] = patientIdHash != null ? patientHashes.computeIfAbsent(patientIdHash, h -> h) : null;
+        if (patientIdHash != null) {
+            docsByPatient.computeIfAbsent(docPatients[doc], h -> new IntList()).add(doc);
+        }
+        docByReport.put(reportId, doc);
+        liveDocs++;
+        liveLength += length;
+        return doc;
+    }
+
+    /**
+     * Renumbers live documents densely and drops tombstoned postings. Caller holds the write lock.
+     */
+    private void compact() {
+        int[] remap = liveRemap();
+        ReportSearchIndex compacted = new ReportSearchIndex();
+        for (int doc = 0; doc < docCount; doc++) {
+            if (remap[doc] >= 0) {
+                compacted.newDoc(reportIds[doc], fingerprints[doc], docPatients[doc], docLengths[doc], docPageEnds[doc]);
+            }
+        }
+        for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+            Postings postings = entry.getValue();
+            Postings live = new Postings();
+            for (int i = 0; i < postings.size; i++) {
+                int doc = remap[postings.docs[i]];
+                if (doc >= 0) {
+                    live.append(doc, postings.positions, postings.posStart[i], postings.freqs[i]);
+                }
+            }
+            if (live.size > 0) {
+                compacted.terms.put(entry.getKey(), live);
+            }
+        }
+        replaceWith(compacted);
+    }
+
+    private void replaceWith(ReportSearchIndex other) {
+        terms.clear();
+        terms.putAll(other.terms);
+        docByReport.clear();
+        docByReport.putAll(other.docByReport);
+        patientHashes.clear();
+        patientHashes.putAll(other.patientHashes);
+        docsByPatient.clear();
+        docsByPatient.putAll(other.docsByPatient);
+        reportIds = other.reportIds;
+        fingerprints = other.fingerprints;
+        docLengths = other.docLengths;
+        docPatients = other.docPatients;
+        docPageEnds = other.docPageEnds;
+        deleted = other.deleted;
+        docCount = other.docCount;
+        liveDocs = other.liveDocs;
+        liveLength = other.liveLength;
+    }
+
+    /**
+     * Pages of {@code doc} holding any of the terms. Caller holds the read lock.
+     */
+    private int[] pagesOf(int doc, Set<String> scoringTerms) {
+        int[] pageEnds = docPageEnds[doc];
+        BitSet pages = new BitSet(pageEnds.length);
+        for (String term : scoringTerms) {
+            Postings postings = terms.get(term);
+            int idx = postings != null ? postings.indexOf(doc, 0) : -1;
+            if (idx < 0) {
+                continue;
+            }
+            for (int p = postings.posStart[idx]; p < postings.posStart[idx + 1]; p++) {
+                pages.set(pageOf(pageEnds, postings.positions[p]));
+            }
+        }
+        return pages.stream().limit(MAX_HIT_PAGES).map(page -> page + 1).toArray();
+    }
+
+    // First page whose end lies past the position; empty pages share their end with the previous page
+    private static int pageOf(int[] pageEnds, int position) {
+        int low = 0;
+        int high = pageEnds.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (pageEnds[mid] > position) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private int[] liveRemap() {
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            remap[doc] = deleted.get(doc) ? -1 : next++;
+        }
+        return remap;
+    }
+
+    private static int liveCount(Postings postings, int[] remap) {
+        int live = 0;
+        for (int i = 0; i < postings.size; i++) {
+            if (remap[postings.docs[i]] >= 0) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    private static void collectScoringTerms(SearchQuery.Node node, boolean negated, Set<String> out) {
+        if (node instanceof SearchQuery.Term term) {
+            if (!negated) {
+                out.add(term.term);
+            }
+        } else if (node instanceof SearchQuery.Phrase phrase) {
+            if (!negated) {
+                out.addAll(phrase.terms);
+            }
+        } else if (node instanceof SearchQuery.Not not) {
+            collectScoringTerms(not.child, !negated, out);
+        } else if (node instanceof SearchQuery.And and) {
+            and.children.forEach(child -> collectScoringTerms(child, negated, out));
+        } else if (node instanceof SearchQuery.Or or) {
+            or.children.forEach(child -> collectScoringTerms(child, negated, out));
+        }
+    }
+
+    /**
+     * Sorted document numbers matching the node, tombstones included. Caller holds the read lock.
+     *
+     * @param scope sorted documents to restrict the result to, or null for the whole index
+     */
+    private int[] evaluate(SearchQuery.Node node, int[] scope) {
+        if (node instanceof SearchQuery.Term term) {
+            return docsOf(terms.get(term.term), scope);
+        }
+        if (node instanceof SearchQuery.Phrase phrase) {
+            return evaluatePhrase(phrase.terms, scope);
+        }
+        if (node instanceof SearchQuery.Or or) {
+            int[] result = new int[0];
+            for (SearchQuery.Node child : or.children) {
+                if (child instanceof SearchQuery.Not) {
+                    throw new IllegalArgumentException("NOT cannot be combined with OR");
+                }
+                result = union(result, evaluate(child, scope));
+            }
+            return result;
+        }
+        if (node instanceof SearchQuery.And and) {
+            List<int[]> required = new ArrayList<>();
+            List<int[]> excluded = new ArrayList<>();
+            for (SearchQuery.Node child : and.children) {
+                if (child instanceof SearchQuery.Not not) {
+                    excluded.add(evaluate(not.child, scope));
+                } else {
+                    required.add(evaluate(child, scope));
+                }
+            }
+            if (required.isEmpty()) {
+                throw new IllegalArgumentException("Query needs at least one term that is not negated");
+            }
+            // Intersect smallest first so each merge is bounded by the shortest list
+            required.sort(Comparator.comparingInt(docs -> docs.length));
+            int[] result = required.get(0);
+            for (int i = 1; i < required.size() && result.length > 0; i++) {
+                result = intersect(result, required.get(i));
+            }
+            for (int[] docs : excluded) {
+                result = subtract(result, docs);
+            }
+            return result;
+        }
+        throw new IllegalArgumentException("Query needs at least one term that is not negated");
+    }
+
+    /**
+     * Documents of the postings, or only those also in {@code scope}. A scope is probed into the postings by
+     * binary search, so the cost follows the scope's length rather than the postings'.
+     */
+    private static int[] docsOf(Postings postings, int[] scope) {
+        if (postings == null) {
+            return new int[0];
+        }
+        if (scope == null) {
+            return Arrays.copyOf(postings.docs, postings.size);
+        }
+        int[] out = new int[Math.min(scope.length, postings.size)];
+        int n = 0;
+        int from = 0;
+        for (int i = 0; i < scope.length && from < postings.size && n < out.length; i++) {
+            int idx = postings.indexOf(scope[i], from);
+            if (idx >= 0) {
+                out[n++] = scope[i];
+                from = idx + 1;
+            } else {
+                from = -idx - 1;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private int[] evaluatePhrase(List<String> phraseTerms, int[] scope) {
+        Postings[] lists = new Postings[phraseTerms.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = terms.get(phraseTerms.get(i));
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        int[] candidates = docsOf(lists[0], scope);
+        for (int i = 1; i < lists.length && candidates.length > 0; i++) {
+            candidates = docsOf(lists[i], candidates);
+        }
+
+        int[] cursors = new int[lists.length];
+        int count = 0;
+        for (int doc : candidates) {
+            for (int i = 0; i < lists.length; i++) {
+                cursors[i] = lists[i].indexOf(doc, cursors[i]);
+            }
+            if (containsPhrase(lists, cursors)) {
+                candidates[count++] = doc;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Whether some position p of the first term has term i at p + i for every i.
+     */
+    private static boolean containsPhrase(Postings[] lists, int[] entries) {
+        Postings first = lists[0];
+        for (int p = first.posStart[entries[0]]; p < first.posStart[entries[0] + 1]; p++) {
+            int start = first.positions[p];
+            boolean all = true;
+            for (int i = 1; i < lists.length && all; i++) {
+                Postings postings = lists[i];
+                all = Arrays.binarySearch(postings.positions, postings.posStart[entries[i]],
+                        postings.posStart[entries[i] + 1], start + i) >= 0;
+            }
+            if (all) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                out[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] subtract(int[] a, int[] b) {
+        int[] out = new int[a.length];
+        int j = 0;
+        int n = 0;
+        for (int doc : a) {
+            while (j < b.length && b[j] < doc) {
+                j++;
+            }
+            if (j == b.length || b[j] != doc) {
+                out[n++] = doc;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in search index snapshot");
+    }
+}
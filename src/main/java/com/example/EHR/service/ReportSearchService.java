@@ -0,0 +1,188 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.MedicalReport;
+import com.example.EHR.model.MedicalReportSummary;
+import com.example.EHR.model.ReportContent;
+import com.example.EHR.model.ReportSearchHit;
+import com.example.EHR.model.ReportSearchResult;
+import com.example.EHR.repository.MedicalReportRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over report text, backed by an in-process {@link ReportSearchIndex}.
+ * <p>
+ * The index is updated synchronously on upload and delete, snapshotted to local disk periodically and on
+ * shutdown, and on startup the snapshot is loaded and reconciled against the database: reports missing
+ * from the snapshot (or whose content or patient changed) are indexed, and reports no longer in the
+ * database are dropped. Losing the snapshot therefore only costs a rebuild, never correctness.
+ */
+@Service
+public class ReportSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportSearchService.class);
+    private static final String SNAPSHOT_FILE = "reports.idx";
+    private static final int REINDEX_CHUNK_SIZE = 200;
+    private static final int MAX_RESULTS = 100;
+
+    private final MedicalReportRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path snapshotPath;
+    private final Duration snapshotInterval;
+    private final ReportSearchIndex index = new ReportSearchIndex();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ScheduledExecutorService snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "search-index-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReportSearchService(MedicalReportRepository repository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${app.search.index-dir:${java.io.tmpdir}/ehr-search-index}") String indexDir,
+                               @Value("${app.search.snapshot-interval:PT5M}") Duration snapshotInterval) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.snapshotInterval = snapshotInterval;
+        try {
+            this.snapshotPath = Files.createDirectories(Path.of(indexDir)).resolve(SNAPSHOT_FILE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create search index directory " + indexDir, e);
+        }
+    }
+
+    public void index(MedicalReport report) {
+        // Normalization only rewrites separators, so the raw text yields the same tokens and its page
+        // offsets stay valid
+        ReportContent content = report.getContent();
+        index.add(report.getId(), ReportSearchIndex.fingerprint(report.getChecksum()),
+                report.getPatientIdHash(), report.getExtractedText(), content != null ? content.getPageEnds() : null);
+        dirty.set(true);
+    }
+
+    public void remove(Long reportId) {
+        if (index.remove(reportId)) {
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * Ranked search. See {@link SearchQuery} for the syntax.
+     *
+     * @param patientIdHash when non-null, only this patient's reports are searched
+     * @throws IllegalArgumentException if the query is malformed
+     */
+    public ReportSearchResult search(String query, String patientIdHash, int limit) {
+        ReportSearchIndex.Result result = index.search(query, patientIdHash, Math.min(Math.max(limit, 1), MAX_RESULTS));
+        if (result.getHits().isEmpty()) {
+            return new ReportSearchResult(List.of(), result.getTotalHits());
+        }
+
+        List<Long> ids = result.getHits().stream().map(ReportSearchIndex.Hit::getReportId).collect(Collectors.toList());
+        Map<Long, MedicalReportSummary> summaries = repository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(MedicalReportSummary::getId, Function.identity()));
+        List<ReportSearchHit> hits = new ArrayList<>(ids.size());
+        for (ReportSearchIndex.Hit hit : result.getHits()) {
+            // A report deleted between the index lookup and this read is simply skipped
+            MedicalReportSummary summary = summaries.get(hit.getReportId());
+            if (summary != null) {
+                hits.add(new ReportSearchHit(summary, hit.getScore(),
+                        Arrays.stream(hit.getPages()).boxed().collect(Collectors.toList())));
+            }
+        }
+        return new ReportSearchResult(hits, result.getTotalHits());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (Files.exists(snapshotPath)) {
+            try {
+                index.loadSnapshot(snapshotPath);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Search index snapshot {} unreadable, rebuilding", snapshotPath, e);
+            }
+        }
+        reconcile();
+        long seconds = snapshotInterval.toSeconds();
+        snapshotter.scheduleWithFixedDelay(this::snapshotIfDirty, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshotter.shutdownNow();
+        snapshotIfDirty();
+    }
+
+    /**
+     * Walks report keys in id order alongside the sorted indexed ids, dropping stale entries and
+     * re-indexing whatever is missing in chunks.
+     */
+    private void reconcile() {
+        long[] indexed = index.reportIds();
+        List<Long> missing = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> keys = repository.streamIndexKeys()) {
+                int[] cursor = new int[1];
+                keys.forEach(row -> {
+                    long id = (Long) row[0];
+                    while (cursor[0] < indexed.length && indexed[cursor[0]] < id) {
+                        remove(indexed[cursor[0]++]);
+                    }
+                    if (cursor[0] < indexed.length && indexed[cursor[0]] == id) {
+                        cursor[0]++;
+                    }
+                    if (!index.matches(id, ReportSearchIndex.fingerprint((String) row[1]), (String) row[2])) {
+                        remove(id);
+                        missing.add(id);
+                    }
+                });
+                while (cursor[0] < indexed.length) {
+                    remove(indexed[cursor[0]++]);
+                }
+            }
+        });
+
+        for (int from = 0; from < missing.size(); from += REINDEX_CHUNK_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + REINDEX_CHUNK_SIZE, missing.size()));
+            repository.findWithContentByIdIn(chunk).forEach(this::index);
+        }
+        if (!missing.isEmpty()) {
+            log.info("Search index: re-indexed {} reports", missing.size());
+            snapshotIfDirty();
+        }
+    }
+
+    private void snapshotIfDirty() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            index.writeSnapshot(snapshotPath);
+        } catch (IOException | RuntimeException e) {
+            dirty.set(true);
+            log.warn("Failed to write search index snapshot {}", snapshotPath, e);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.EHR.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parsed search query. Supported syntax: bare terms (implicitly AND-ed), {@code AND}, {@code OR},
+ * {@code NOT} or a leading {@code -}, parentheses and {@code "quoted phrases"}. Terms go through the same
+ * tokenizer as indexed text, so a word such as {@code x-ray} becomes the phrase {@code "x ray"}.
+ */
+final class SearchQuery {
+
+    static final int MAX_QUERY_LENGTH = 1024;
+
+    abstract static class Node {
+    }
+
+    static final class Term extends Node {
+        final String term;
+
+        Term(String term) {
+            this.term = term;
+        }
+    }
+
+    static final class Phrase extends Node {
+        final List<String> terms;
+
+        Phrase(List<String> terms) {
+            this.terms = terms;
+        }
+    }
+
+    static final class Not extends Node {
+        final Node child;
+
+        Not(Node child) {
+            this.child = child;
+        }
+    }
+
+    static final class And extends Node {
+        final List<Node> children;
+
+        And(List<Node> children) {
+            this.children = children;
+        }
+    }
+
+    static final class Or extends Node {
+        final List<Node> children;
+
+        Or(List<Node> children) {
+            this.children = children;
+        }
+    }
+
+    private final String input;
+    private int pos;
+
+    private SearchQuery(String input) {
+        this.input = input;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the query is empty, too long or malformed
+     */
+    static Node parse(String query) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Query is required");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Query too long. Max length: " + MAX_QUERY_LENGTH);
+        }
+        SearchQuery parser = new SearchQuery(query);
+        Node node = parser.parseOr();
+        parser.skipSpaces();
+        if (parser.pos < query.length()) {
+            throw new IllegalArgumentException("Unexpected '" + query.charAt(parser.pos) + "' in query");
+        }
+        if (node == null) {
+            throw new IllegalArgumentException("Query has no searchable terms");
+        }
+        return node;
+    }
+
+    private Node parseOr() {
+        List<Node> children = new ArrayList<>();
+        Node first = parseAnd();
+        if (first != null) {
+            children.add(first);
+        }
+        while (consumeKeyword("OR")) {
+            Node next = parseAnd();
+            if (next != null) {
+                children.add(next);
+            }
+        }
+        if (children.isEmpty()) {
+            return null;
+        }
+        return children.size() == 1 ? children.get(0) : new Or(children);
+    }
+
+    private Node parseAnd() {
+        List<Node> children = new ArrayList<>();
+        while (true) {
+            skipSpaces();
+            if (pos >= input.length() || input.charAt(pos) == ')' || peekKeyword("OR")) {
+                break;
+            }
+            consumeKeyword("AND");
+            Node next = parseUnary();
+            if (next != null) {
+                children.add(next);
+            }
+        }
+        if (children.isEmpty()) {
+            return null;
+        }
+        return children.size() == 1 ? children.get(0) : new And(children);
+    }
+
+    private Node parseUnary() {
+        skipSpaces();
+        if (consumeKeyword("NOT")) {
+            Node child = parseUnary();
+            return child != null ? new Not(child) : null;
+        }
+        if (pos >= input.length()) {
+            return null;
+        }
+        char c = input.charAt(pos);
+        if (c == '-') {
+            pos++;
+            Node child = parseUnary();
+            return child != null ? new Not(child) : null;
+        }
+        if (c == '(') {
+            pos++;
+            Node inner = parseOr();
+            skipSpaces();
+            if (pos >= input.length() || input.charAt(pos) != ')') {
+                throw new IllegalArgumentException("Unbalanced parentheses in query");
+            }
+            pos++;
+            return inner;
+        }
+        if (c == '"') {
+            int close = input.indexOf('"', pos + 1);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unterminated phrase in query");
+            }
+            String phrase = input.substring(pos + 1, close);
+            pos = close + 1;
+            return termsToNode(phrase);
+        }
+        int start = pos;
+        while (pos < input.length() && !isDelimiter(input.charAt(pos))) {
+            pos++;
+        }
+        return termsToNode(input.substring(start, pos));
+    }
+
+    private static Node termsToNode(String text) {
+        List<String> terms = new ArrayList<>();
+        ReportSearchIndex.tokenize(text, (term, position) -> terms.add(term));
+        if (terms.isEmpty()) {
+            return null;
+        }
+        return terms.size() == 1 ? new Term(terms.get(0)) : new Phrase(terms);
+    }
+
+    private static boolean isDelimiter(char c) {
+        return Character.isWhitespace(c) || c == '(' || c == ')' || c == '"';
+    }
+
+    private boolean peekKeyword(String keyword) {
+        skipSpaces();
+        int end = pos + keyword.length();
+        return input.startsWith(keyword, pos) && (end == input.length() || isDelimiter(input.charAt(end)));
+    }
+
+    private boolean consumeKeyword(String keyword) {
+        if (peekKeyword(keyword)) {
+            pos += keyword.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void skipSpaces() {
+        while (pos < input.length() && Character.isWhitespace(input.charAt(pos))) {
+            pos++;
+        }
+    }
+}
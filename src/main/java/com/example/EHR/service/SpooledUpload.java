@@ -0,0 +1,112 @@
+package com.example.EHR.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * An uploaded file copied to local disk in a single pass, with its SHA-256 computed on the way.
+ * The spooled copy is deleted when the upload is closed.
+ * <p>
+ * It also carries what the upload metrics need later, possibly on another thread: how long spooling
+ * took and the uploader's role.
+ */
+public final class SpooledUpload implements AutoCloseable {
+
+    private final Path path;
+    private final String checksum;
+    private final long size;
+    private final String originalFilename;
+    private final String uploaderRole;
+    private final long spoolNanos;
+
+    private SpooledUpload(Path path, String checksum, long size, String originalFilename, String uploaderRole,
+                          long spoolNanos) {
+        this.path = path;
+        this.checksum = checksum;
+        this.size = size;
+        this.originalFilename = originalFilename;
+        this.uploaderRole = uploaderRole;
+        this.spoolNanos = spoolNanos;
+    }
+
+    static SpooledUpload spool(MultipartFile file, Path directory, String uploaderRole) throws IOException {
+        long start = System.nanoTime();
+        Path target = Files.createTempFile(directory, "upload-", ".pdf");
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            long size;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), md);
+                 OutputStream out = Files.newOutputStream(target)) {
+                size = in.transferTo(out);
+            }
+            return new SpooledUpload(target, HexFormat.of().formatHex(md.digest()), size, file.getOriginalFilename(),
+                    uploaderRole, System.nanoTime() - start);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        } catch (NoSuchAlgorithmException e) {
+            Files.deleteIfExists(target);
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * An upload spooled earlier, e.g. by a job interrupted by a restart.
+     */
+    static SpooledUpload restore(Path path, String checksum, long size, String originalFilename, String uploaderRole,
+                                 long spoolNanos) {
+        return new SpooledUpload(path, checksum, size, originalFilename, uploaderRole, spoolNanos);
+    }
+
+    /**
+     * Moves the spooled file to {@code target}. The returned upload owns the file from then on.
+     */
+    SpooledUpload moveTo(Path target) throws IOException {
+        Files.move(path, target);
+        return new SpooledUpload(target, checksum, size, originalFilename, uploaderRole, spoolNanos);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    public String getUploaderRole() {
+        return uploaderRole;
+    }
+
+    /**
+     * Time taken to copy and hash the upload.
+     */
+    public long getSpoolNanos() {
+        return spoolNanos;
+    }
+
+    @Override
+    public void close() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+}
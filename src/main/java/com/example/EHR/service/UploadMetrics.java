@@ -0,0 +1,131 @@
+package com.example.EHR.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload pipeline metrics, exported through Actuator (e.g. {@code /actuator/prometheus}).
+ * <p>
+ * {@code ehr.upload.stage} is a timer with a percentile histogram per {@link Stage} and uploader
+ * {@code role}; the counters cover bytes ingested, pages parsed, parse failures and checksum dedup hits,
+ * and are also tagged with {@code reportType}. The timer leaves {@code reportType} out because every tag
+ * value multiplies its dozens of histogram buckets. Report types are free text, so only the first
+ * {@value #MAX_REPORT_TYPES} distinct values get their own tag value and the rest are reported as
+ * {@code other}.
+ */
+@Component
+public class UploadMetrics {
+
+    public enum Stage {
+        SPOOL("spool"), PARSE_WAIT("parse_wait"), PDF_LOAD("pdf_load"), EXTRACTION("extraction"), ENCRYPTION("encryption"),
+        STORE("store"), CONTENT_SAVE("content_save"), SAVE("save");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    static final int MAX_REPORT_TYPES = 50;
+    private static final int MAX_REPORT_TYPE_LENGTH = 32;
+    private static final String[] ROLES = {"ADMIN", "DIAGNOST", "DOCTOR", "PATIENT"};
+
+    private final MeterRegistry registry;
+    private final Set<String> reportTypes = ConcurrentHashMap.newKeySet();
+
+    public UploadMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Role tag of the current request's user. Resolve it on the request thread; extraction workers
+     * carry no security context.
+     */
+    public static String currentRole() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) {
+            return "anonymous";
+        }
+        for (String role : ROLES) {
+            for (GrantedAuthority authority : auth.getAuthorities()) {
+                if (authority.getAuthority().equals("ROLE_" + role)) {
+                    return role.toLowerCase(Locale.ROOT);
+                }
+            }
+        }
+        return "other";
+    }
+
+    public void recordStage(Stage stage, String role, long nanos) {
+        Timer.builder("ehr.upload.stage")
+                .description("Time spent in one stage of the upload pipeline")
+                .tags("stage", stage.tag, "role", roleTag(role))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordIngested(String reportType, String role, long bytes) {
+        counter("ehr.upload.bytes", "Bytes of PDF accepted for ingest", reportType, role).increment(bytes);
+    }
+
+    public void recordParsed(String reportType, String role, int pages) {
+        counter("ehr.upload.pages", "Pages parsed from uploaded PDFs", reportType, role).increment(pages);
+    }
+
+    public void recordParseFailure(String reportType, String role) {
+        counter("ehr.upload.parse.failures", "Uploads whose PDF could not be parsed and were stored without text",
+                reportType, role).increment();
+    }
+
+    public void recordDedupHit(String reportType, String role) {
+        counter("ehr.upload.dedup.hits", "Uploads whose content was already extracted under the same checksum",
+                reportType, role).increment();
+    }
+
+    private Counter counter(String name, String description, String reportType, String role) {
+        return Counter.builder(name)
+                .description(description)
+                .tags(tags(reportType, role))
+                .register(registry);
+    }
+
+    private Tags tags(String reportType, String role) {
+        return Tags.of("reportType", reportTypeTag(reportType), "role", roleTag(role));
+    }
+
+    private static String roleTag(String role) {
+        return role != null ? role : "anonymous";
+    }
+
+    String reportTypeTag(String reportType) {
+        if (reportType == null || reportType.isBlank()) {
+            return "none";
+        }
+        String tag = reportType.strip().toUpperCase(Locale.ROOT);
+        if (tag.length() > MAX_REPORT_TYPE_LENGTH) {
+            tag = tag.substring(0, MAX_REPORT_TYPE_LENGTH);
+        }
+        if (reportTypes.contains(tag)) {
+            return tag;
+        }
+        // Not atomic with the add, so the cap can be overshot by a few concurrent first uploads
+        if (reportTypes.size() >= MAX_REPORT_TYPES) {
+            return "other";
+        }
+        reportTypes.add(tag);
+        return tag;
+    }
+}
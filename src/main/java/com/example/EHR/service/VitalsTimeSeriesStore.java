@@ -0,0 +1,319 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.MedicalReport;
+import com.example.EHR.model.Observation;
+import com.example.EHR.model.ReportObservation;
+import com.example.EHR.model.TrendStats;
+import com.example.EHR.model.VitalsTrend;
+import com.example.EHR.repository.ReportObservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory per-patient vitals time series for trend queries.
+ * <p>
+ * Each (patient, analyte) series keeps timestamps, values, source report ids and observation ids in
+ * parallel primitive arrays sorted by time, so a trend query is a binary search plus a linear scan with no
+ * per-point allocation. Series are fed at ingest, trimmed on report delete and rebuilt from
+ * {@code report_observations} at startup. Blood pressure series hold the systolic reading.
+ */
+@Component
+public class VitalsTimeSeriesStore {
+
+    private static final Logger log = LoggerFactory.getLogger(VitalsTimeSeriesStore.class);
+    private static final int MAX_BUCKETS = 1000;
+    private static final Observation.Type[] TYPES = Observation.Type.values();
+
+    private final ReportObservationRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrentMap<String, Series[]> seriesByPatient = new ConcurrentHashMap<>();
+    // Reports deleted while a rebuild streams (report id to patient), removed again once it has finished
+    private final Object rebuildLock = new Object();
+    private Map<Long, String> deletedDuringRebuild;
+
+    public VitalsTimeSeriesStore(ReportObservationRepository repository, TransactionTemplate transactionTemplate) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void add(MedicalReport report) {
+        if (report.getPatientIdHash() == null) {
+            return;
+        }
+        for (ReportObservation observation : report.getObservations()) {
+            add(report.getPatientIdHash(), observation.getAnalyte(), toMillis(observation.getObservedAt()),
+                    observation.getValue(), report.getId(), observation.getId());
+        }
+    }
+
+    public void removeReport(String patientIdHash, long reportId) {
+        synchronized (rebuildLock) {
+            if (deletedDuringRebuild != null && patientIdHash != null) {
+                deletedDuringRebuild.put(reportId, patientIdHash);
+            }
+        }
+        removePoints(patientIdHash, reportId);
+    }
+
+    private void removePoints(String patientIdHash, long reportId) {
+        Series[] series = patientIdHash != null ? seriesByPatient.get(patientIdHash) : null;
+        if (series == null) {
+            return;
+        }
+        for (Series s : series) {
+            if (s != null) {
+                s.removeReport(reportId);
+            }
+        }
+    }
+
+    /**
+     * Aggregates one analyte for a patient. {@code from}/{@code to} default to the first/last point; with
+     * a {@code bucket} width the window is also split into consecutive buckets starting at {@code from}.
+     *
+     * @throws IllegalArgumentException if the bucket width is not positive or yields too many buckets
+     */
+    public VitalsTrend trend(String patientIdHash, Observation.Type analyte, LocalDateTime from, LocalDateTime to,
+                             Duration bucket) {
+        if (bucket != null && (bucket.isZero() || bucket.isNegative())) {
+            throw new IllegalArgumentException("Bucket width must be positive");
+        }
+        Series[] series = seriesByPatient.get(patientIdHash);
+        Series s = series != null ? series[analyte.ordinal()] : null;
+        if (s == null) {
+            return new VitalsTrend(analyte, new TrendStats(from, to, 0, null, null, null, null, null), List.of());
+        }
+        return s.trend(analyte, from != null ? toMillis(from) : Long.MIN_VALUE, to != null ? toMillis(to) : Long.MAX_VALUE,
+                bucket != null ? bucket.toMillis() : 0);
+    }
+
+    /**
+     * Reloads every persisted observation while requests are served. Adding is idempotent per observation
+     * id, so uploads that land while the rebuild streams are not counted twice. A report deleted after its
+     * rows were read would be added back by the stream, so deletes during the rebuild are applied again
+     * once it has finished.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long[] loaded = new long[1];
+        beginRebuild();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> points = repository.streamTimeSeriesPoints()) {
+                    points.forEach(row -> {
+                        add((String) row[0], (Observation.Type) row[1], toMillis((LocalDateTime) row[2]),
+                                (Double) row[3], (Long) row[4], (Long) row[5]);
+                        loaded[0]++;
+                    });
+                }
+            });
+        } finally {
+            finishRebuild();
+        }
+        if (loaded[0] > 0) {
+            log.info("Loaded {} observations into the vitals time-series store", loaded[0]);
+        }
+    }
+
+    void beginRebuild() {
+        synchronized (rebuildLock) {
+            deletedDuringRebuild = new HashMap<>();
+        }
+    }
+
+    void finishRebuild() {
+        Map<Long, String> deleted;
+        synchronized (rebuildLock) {
+            deleted = deletedDuringRebuild;
+            deletedDuringRebuild = null;
+        }
+        // Deletes after this point find every streamed point already in place and remove it themselves
+        deleted.forEach((reportId, patientIdHash) -> removePoints(patientIdHash, reportId));
+    }
+
+    void add(String patientIdHash, Observation.Type analyte, long timeMillis, double value, long reportId,
+             long observationId) {
+        Series[] series = seriesByPatient.computeIfAbsent(patientIdHash, h -> new Series[TYPES.length]);
+        Series s;
+        synchronized (series) {
+            s = series[analyte.ordinal()];
+            if (s == null) {
+                s = new Series();
+                series[analyte.ordinal()] = s;
+            }
+        }
+        s.add(timeMillis, value, reportId, observationId);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime toTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private static final class Series {
+        private long[] times = new long[8];
+        private double[] values = new double[8];
+        private long[] reportIds = new long[8];
+        private long[] observationIds = new long[8];
+        private int size;
+
+        synchronized void add(long time, double value, long reportId, long observationId) {
+            int at = upperBound(time);
+            // An observation's time never changes, so a point already added sits among those with its time
+            for (int i = at - 1; i >= 0 && times[i] == time; i--) {
+                if (observationIds[i] == observationId) {
+                    return;
+                }
+            }
+            if (size == times.length) {
+                int capacity = size * 2;
+                times = Arrays.copyOf(times, capacity);
+                values = Arrays.copyOf(values, capacity);
+                reportIds = Arrays.copyOf(reportIds, capacity);
+                observationIds = Arrays.copyOf(observationIds, capacity);
+            }
+            // Points almost always arrive in time order, so this is usually an append
+            int tail = size - at;
+            if (tail > 0) {
+                System.arraycopy(times, at, times, at + 1, tail);
+                System.arraycopy(values, at, values, at + 1, tail);
+                System.arraycopy(reportIds, at, reportIds, at + 1, tail);
+                System.arraycopy(observationIds, at, observationIds, at + 1, tail);
+            }
+            times[at] = time;
+            values[at] = value;
+            reportIds[at] = reportId;
+            observationIds[at] = observationId;
+            size++;
+        }
+
+        synchronized void removeReport(long reportId) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (reportIds[i] != reportId) {
+                    times[kept] = times[i];
+                    values[kept] = values[i];
+                    reportIds[kept] = reportIds[i];
+                    observationIds[kept] = observationIds[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+
+        synchronized VitalsTrend trend(Observation.Type analyte, long from, long to, long bucketMillis) {
+            int start = lowerBound(from);
+            int end = upperBound(to);
+            if (start >= end) {
+                return new VitalsTrend(analyte, new TrendStats(from == Long.MIN_VALUE ? null : toTime(from),
+                        to == Long.MAX_VALUE ? null : toTime(to), 0, null, null, null, null, null), List.of());
+            }
+            long windowStart = from == Long.MIN_VALUE ? times[start] : from;
+            long windowEnd = to == Long.MAX_VALUE ? times[end - 1] : to;
+
+            int bucketCount = 0;
+            if (bucketMillis > 0) {
+                long buckets = (windowEnd - windowStart) / bucketMillis + 1;
+                if (buckets > MAX_BUCKETS) {
+                    throw new IllegalArgumentException("Too many buckets. Max: " + MAX_BUCKETS);
+                }
+                bucketCount = (int) buckets;
+            }
+            long[] counts = new long[bucketCount];
+            double[] mins = new double[bucketCount];
+            double[] maxs = new double[bucketCount];
+            double[] sums = new double[bucketCount];
+            int[] lastIndex = new int[bucketCount];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            double sum = 0;
+            for (int i = start; i < end; i++) {
+                double v = values[i];
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+                sum += v;
+                if (bucketCount > 0) {
+                    int b = (int) ((times[i] - windowStart) / bucketMillis);
+                    counts[b]++;
+                    mins[b] = Math.min(mins[b], v);
+                    maxs[b] = Math.max(maxs[b], v);
+                    sums[b] += v;
+                    lastIndex[b] = i;
+                }
+            }
+
+            int count = end - start;
+            TrendStats overall = new TrendStats(toTime(windowStart), toTime(windowEnd), count, min, max, sum / count,
+                    values[end - 1], toTime(times[end - 1]));
+            List<TrendStats> bucketStats = new ArrayList<>(bucketCount);
+            for (int b = 0; b < bucketCount; b++) {
+                long bucketStart = windowStart + b * bucketMillis;
+                LocalDateTime bucketEnd = toTime(Math.min(bucketStart + bucketMillis - 1, windowEnd));
+                if (counts[b] == 0) {
+                    bucketStats.add(new TrendStats(toTime(bucketStart), bucketEnd, 0, null, null, null, null, null));
+                } else {
+                    bucketStats.add(new TrendStats(toTime(bucketStart), bucketEnd, counts[b], mins[b], maxs[b],
+                            sums[b] / counts[b], values[lastIndex[b]], toTime(times[lastIndex[b]])));
+                }
+            }
+            return new VitalsTrend(analyte, overall, bucketStats);
+        }
+
+        /**
+         * First index with a time >= {@code time}.
+         */
+        private int lowerBound(long time) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[mid] < time) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * First index with a time > {@code time}.
+         */
+        private int upperBound(long time) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[mid] <= time) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.EHR.text;
+
+import java.io.Writer;
+
+/**
+ * Writer that applies {@link TextNormalizer} rules while text is written into it, so a PDF text stripper
+ * can stream straight into it and the normalized text (and optionally the raw text) is built in one pass
+ * without the intermediate copies of a replace/replaceAll chain.
+ * <p>
+ * Not thread-safe; {@link #getNormalizedText()} may be called at any point and reflects what has been
+ * written so far.
+ */
+public final class NormalizingWriter extends Writer {
+
+    private final StringBuilder raw;
+    private final StringBuilder normalized;
+
+    /**
+     * @param keepRaw       also keep the text exactly as written
+     * @param expectedChars capacity hint, e.g. from the page count
+     */
+    public NormalizingWriter(boolean keepRaw, int expectedChars) {
+        int capacity = Math.max(16, expectedChars);
+        this.raw = keepRaw ? new StringBuilder(capacity) : null;
+        this.normalized = new StringBuilder(capacity);
+    }
+
+    @Override
+    public void write(int c) {
+        append((char) c);
+    }
+
+    @Override
+    public void write(char[] buf, int off, int len) {
+        if (raw != null) {
+            raw.append(buf, off, len);
+        }
+        for (int i = off, end = off + len; i < end; i++) {
+            normalize(buf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        if (raw != null) {
+            raw.append(str, off, off + len);
+        }
+        for (int i = off, end = off + len; i < end; i++) {
+            normalize(str.charAt(i));
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence csq) {
+        String s = String.valueOf(csq);
+        write(s, 0, s.length());
+        return this;
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) {
+        return append(String.valueOf(csq).substring(start, end));
+    }
+
+    @Override
+    public Writer append(char c) {
+        if (raw != null) {
+            raw.append(c);
+        }
+        normalize(c);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * @throws IllegalStateException if the writer was created without {@code keepRaw}
+     */
+    public String getRawText() {
+        if (raw == null) {
+            throw new IllegalStateException("Raw text is not kept");
+        }
+        return raw.toString();
+    }
+
+    public String getNormalizedText() {
+        // Trailing whitespace cannot be known to be trailing until the end, so it is trimmed here
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return normalized.substring(0, end);
+    }
+
+    private void normalize(char c) {
+        if (c == '\u2013' || c == '\u2014' || c == '\u2212') {
+            c = '-';
+        } else if (c == '\r' || c == '\t') {
+            c = ' ';
+        }
+        int length = normalized.length();
+        if (length == 0 ? c <= ' ' : c == ' ' && normalized.charAt(length - 1) == ' ') {
+            return;
+        }
+        normalized.append(c);
+    }
+}
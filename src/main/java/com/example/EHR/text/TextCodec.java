@@ -0,0 +1,95 @@
+package com.example.EHR.text;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary encoding for stored text: a codec byte, the UTF-8 length, then the UTF-8 bytes either
+ * raw-deflated or, when deflate does not pay off (short text), stored as-is. The length prefix lets
+ * decoding inflate straight into an exactly sized array.
+ */
+public final class TextCodec {
+
+    private static final byte STORED = 0;
+    private static final byte DEFLATED = 1;
+    private static final int HEADER_LENGTH = 5;
+    // Below this, header and deflate block overhead outweigh any saving
+    private static final int MIN_DEFLATE_LENGTH = 256;
+
+    private TextCodec() {
+    }
+
+    public static byte[] encode(String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= MIN_DEFLATE_LENGTH) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+            try {
+                deflater.setInput(utf8);
+                deflater.finish();
+                byte[] out = new byte[HEADER_LENGTH + utf8.length];
+                int written = HEADER_LENGTH;
+                while (!deflater.finished() && written < out.length) {
+                    written += deflater.deflate(out, written, out.length - written);
+                }
+                if (deflater.finished()) {
+                    writeHeader(out, DEFLATED, utf8.length);
+                    return Arrays.copyOf(out, written);
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+        byte[] out = new byte[HEADER_LENGTH + utf8.length];
+        writeHeader(out, STORED, utf8.length);
+        System.arraycopy(utf8, 0, out, HEADER_LENGTH, utf8.length);
+        return out;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the data is not a valid encoding
+     */
+    public static String decode(byte[] data) {
+        if (data == null || data.length < HEADER_LENGTH) {
+            throw new IllegalArgumentException("Encoded text is truncated");
+        }
+        int length = ((data[1] & 0xFF) << 24) | ((data[2] & 0xFF) << 16) | ((data[3] & 0xFF) << 8) | (data[4] & 0xFF);
+        if (data[0] == STORED) {
+            return new String(data, HEADER_LENGTH, data.length - HEADER_LENGTH, StandardCharsets.UTF_8);
+        }
+        if (data[0] != DEFLATED || length < 0) {
+            throw new IllegalArgumentException("Unknown text encoding " + data[0]);
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+            byte[] utf8 = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int n = inflater.inflate(utf8, read, length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new IllegalArgumentException("Encoded text is truncated");
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Encoded text is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeHeader(byte[] out, byte codec, int length) {
+        out[0] = codec;
+        out[1] = (byte) (length >>> 24);
+        out[2] = (byte) (length >>> 16);
+        out[3] = (byte) (length >>> 8);
+        out[4] = (byte) length;
+    }
+}
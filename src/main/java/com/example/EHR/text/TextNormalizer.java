@@ -0,0 +1,20 @@
+package com.example.EHR.text;
+
+/**
+ * Normalization applied to extracted report text before search and observation extraction: typographic
+ * dashes become '-', carriage returns and tabs become spaces, runs of spaces collapse to one, and the
+ * result is trimmed. Deterministic, so normalized text can always be re-derived from the raw text.
+ * The rules themselves are applied by {@link NormalizingWriter}.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) return "";
+        NormalizingWriter writer = new NormalizingWriter(false, text.length());
+        writer.write(text, 0, text.length());
+        return writer.getNormalizedText();
+    }
+}
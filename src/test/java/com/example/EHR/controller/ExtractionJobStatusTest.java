@@ -0,0 +1,55 @@
+package com.example.EHR.controller;
+
+import com.example.EHR.model.ExtractionJob;
+import com.example.EHR.service.ExtractionJobService;
+import com.example.EHR.service.MedicalReportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "diagnost", roles = "DIAGNOST")
+class ExtractionJobStatusTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ExtractionJobService jobService;
+
+    @Autowired
+    private MedicalReportService reportService;
+
+    @Test
+    void completedJobWhoseReportWasDeletedIsStillReported() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "deleted.pdf", "application/pdf",
+                Files.readAllBytes(Path.of("test.pdf")));
+        ExtractionJob job = jobService.submit(file, "diagnost", "123456789012", "LAB", null);
+        ExtractionJob finished = jobService.completion(job).get(30, TimeUnit.SECONDS);
+        assertEquals(ExtractionJob.Status.COMPLETED, finished.getStatus());
+        reportService.deleteById(finished.getReportId());
+
+        MvcResult pending = mockMvc.perform(get("/api/reports/jobs/" + job.getId())).andReturn();
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.reportDeleted").value(true))
+                .andExpect(jsonPath("$.report").doesNotExist());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.EHR.controller;
+
+import com.example.EHR.model.MedicalReport;
+import com.example.EHR.service.MedicalReportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "doctor", roles = "DOCTOR")
+class ReportFileDownloadTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MedicalReportService service;
+
+    private byte[] pdf;
+    private String url;
+    private String etag;
+
+    @BeforeEach
+    void upload() throws Exception {
+        pdf = Files.readAllBytes(Path.of("test.pdf"));
+        MedicalReport report = service.upload(new MockMultipartFile("file", "download.pdf", "application/pdf", pdf),
+                "diagnost", "123456789012", "LAB", null);
+        url = "/api/reports/" + report.getId() + "/file";
+        etag = "\"" + report.getChecksum() + "\"";
+    }
+
+    @Test
+    void fullDownloadAdvertisesRangesAndEtag() throws Exception {
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, pdf.length))
+                .andExpect(content().bytes(pdf));
+    }
+
+    @Test
+    void boundedRange() throws Exception {
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/" + pdf.length))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().bytes(Arrays.copyOfRange(pdf, 10, 20)));
+    }
+
+    @Test
+    void suffixRange() throws Exception {
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=-16"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + (pdf.length - 16) + "-" + (pdf.length - 1) + "/" + pdf.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(pdf, pdf.length - 16, pdf.length)));
+    }
+
+    @Test
+    void openEndedRange() throws Exception {
+        int start = pdf.length - 5;
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=" + start + "-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + start + "-" + (pdf.length - 1) + "/" + pdf.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(pdf, start, pdf.length)));
+    }
+
+    @Test
+    void rangePastTheEndIsUnsatisfiable() throws Exception {
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=" + pdf.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + pdf.length))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void mismatchedIfRangeSendsWholeFile() throws Exception {
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(pdf));
+    }
+
+    @Test
+    void headSendsHeadersOnly() throws Exception {
+        mockMvc.perform(head(url).header(HttpHeaders.RANGE, "bytes=0-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().bytes(new byte[0]));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.EHR.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportContentTest {
+
+    @Test
+    void textWithKnownPagesIsSplitIntoPages() {
+        ReportContent content = new ReportContent();
+        content.setExtractedText("one\ntwo\nfour\n");
+        content.setPageEnds(new int[]{4, 8, 8, 13});
+
+        assertArrayEquals(new int[]{4, 8, 8, 13}, content.getPageEnds());
+        List<ReportPage> pages = content.getPages();
+        assertEquals(List.of(1, 2, 3, 4), pages.stream().map(ReportPage::getPageNumber).toList());
+        assertEquals(List.of("one\n", "two\n", "", "four\n"), pages.stream().map(ReportPage::getText).toList());
+        assertSame(content, pages.get(0).getContent());
+        assertEquals("one\ntwo\nfour\n", content.getExtractedText());
+    }
+
+    @Test
+    void offsetsThatDoNotDescribeTheTextAreIgnored() {
+        ReportContent content = new ReportContent();
+        content.setExtractedText("abc");
+        content.setPageEnds(new int[]{1, 2});
+
+        assertNull(content.getPageEnds());
+        assertTrue(content.getPages().isEmpty());
+        assertEquals("abc", content.getExtractedText());
+    }
+
+    @Test
+    void newTextDropsThePreviousSplit() {
+        ReportContent content = new ReportContent();
+        content.setExtractedText("ab");
+        content.setPageEnds(new int[]{1, 2});
+        content.setExtractedText("xyz");
+
+        assertNull(content.getPageEnds());
+        assertTrue(content.getPages().isEmpty());
+    }
+}
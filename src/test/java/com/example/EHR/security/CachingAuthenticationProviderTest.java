@@ -0,0 +1,100 @@
+package com.example.EHR.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingAuthenticationProviderTest {
+
+    private final AtomicInteger bcryptChecks = new AtomicInteger();
+    private final AtomicLong now = new AtomicLong();
+    private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+    private final InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(
+            User.withUsername("doctor").password(bcrypt.encode("doctor123")).roles("DOCTOR").build());
+
+    private CachingAuthenticationProvider provider(int maxEntries) {
+        PasswordEncoder counting = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                bcryptChecks.incrementAndGet();
+                return bcrypt.matches(rawPassword, encodedPassword);
+            }
+        };
+        DaoAuthenticationProvider dao = new DaoAuthenticationProvider();
+        dao.setUserDetailsService(users);
+        dao.setPasswordEncoder(counting);
+        return new CachingAuthenticationProvider(dao, users, Duration.ofMinutes(5), maxEntries, now::get);
+    }
+
+    private static Authentication login(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+
+    @Test
+    void repeatLoginSkipsBcrypt() {
+        CachingAuthenticationProvider provider = provider(10);
+
+        Authentication first = provider.authenticate(login("doctor", "doctor123"));
+        Authentication second = provider.authenticate(login("doctor", "doctor123"));
+
+        assertTrue(second.isAuthenticated());
+        assertEquals("doctor", second.getName());
+        assertEquals(first.getAuthorities(), second.getAuthorities());
+        assertEquals(1, bcryptChecks.get());
+    }
+
+    @Test
+    void wrongPasswordIsNeverCached() {
+        CachingAuthenticationProvider provider = provider(10);
+        provider.authenticate(login("doctor", "doctor123"));
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(login("doctor", "doctor124")));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(login("doctor", "doctor124")));
+        assertEquals(3, bcryptChecks.get());
+        assertEquals(1, provider.size());
+    }
+
+    @Test
+    void entriesExpireAndFollowPasswordChanges() {
+        CachingAuthenticationProvider provider = provider(10);
+        provider.authenticate(login("doctor", "doctor123"));
+
+        now.addAndGet(Duration.ofMinutes(6).toNanos());
+        provider.authenticate(login("doctor", "doctor123"));
+        assertEquals(2, bcryptChecks.get());
+
+        users.updateUser(User.withUsername("doctor").password(bcrypt.encode("changed")).roles("DOCTOR").build());
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(login("doctor", "doctor123")));
+        assertEquals(0, provider.size());
+    }
+
+    @Test
+    void cacheIsBounded() {
+        users.createUser(User.withUsername("admin").password(bcrypt.encode("admin123")).roles("ADMIN").build());
+        CachingAuthenticationProvider provider = provider(1);
+
+        provider.authenticate(login("doctor", "doctor123"));
+        provider.authenticate(login("admin", "admin123"));
+        provider.authenticate(login("admin", "admin123"));
+
+        assertEquals(1, provider.size());
+        assertEquals(3, bcryptChecks.get());
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.Base64;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -131,5 +133,48 @@ class AadhaarEncryptionServiceTest {
         assertThrows(IllegalArgumentException.class, () ->
             encryptionService.formatAadhaar(null));
     }
-}
 
+    @Test
+    void rotatedKeyringDecryptsOldCiphertextsAndEncryptsWithActiveKey() {
+        AadhaarEncryptionService before = new AadhaarEncryptionService(null, null, 0);
+        String newKey = new AadhaarEncryptionService(null, null, 0).getEncodedKey();
+        AadhaarEncryptionService rotated = new AadhaarEncryptionService(null,
+                "1:" + before.getEncodedKey() + ",2:" + newKey, 0);
+        assertEquals(2, rotated.getActiveKeyId());
+
+        String old = before.encrypt(VALID_AADHAAR);
+        assertEquals(VALID_AADHAAR, rotated.decrypt(old));
+        assertTrue(rotated.needsReencryption(old));
+
+        String moved = rotated.reencrypt(old);
+        assertFalse(rotated.needsReencryption(moved));
+        assertEquals(VALID_AADHAAR, rotated.decrypt(moved));
+        // Key 1 alone cannot read values moved to key 2
+        assertThrows(RuntimeException.class, () -> before.decrypt(moved));
+    }
+
+    @Test
+    void legacyCiphertextsDecryptWithKeyOne() throws Exception {
+        String encoded = LegacyCiphertexts.encrypt(VALID_AADHAAR, encryptionService.getEncodedKey());
+
+        assertEquals(VALID_AADHAAR, encryptionService.decrypt(encoded));
+        assertTrue(encryptionService.needsReencryption(encoded));
+        assertFalse(encryptionService.needsReencryption(encryptionService.reencrypt(encoded)));
+    }
+
+    @Test
+    void keyIdIsAuthenticated() {
+        AadhaarEncryptionService first = new AadhaarEncryptionService(null, null, 0);
+        AadhaarEncryptionService both = new AadhaarEncryptionService(null,
+                "1:" + first.getEncodedKey() + ",2:" + first.getEncodedKey(), 1);
+
+        byte[] relabelled = Base64.getDecoder().decode(both.encrypt(VALID_AADHAAR));
+        relabelled[1] = 2;
+        assertThrows(RuntimeException.class, () -> both.decrypt(Base64.getEncoder().encodeToString(relabelled)));
+    }
+
+    @Test
+    void rejectsUnknownActiveKey() {
+        assertThrows(RuntimeException.class, () -> new AadhaarEncryptionService(null, null, 3));
+    }
+}
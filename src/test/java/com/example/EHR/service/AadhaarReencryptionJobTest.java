@@ -0,0 +1,138 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.ExtractionJob;
+import com.example.EHR.model.MedicalReport;
+import com.example.EHR.model.ReencryptionCheckpoint;
+import com.example.EHR.repository.ExtractionJobRepository;
+import com.example.EHR.repository.MedicalReportRepository;
+import com.example.EHR.repository.ReencryptionCheckpointRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+class AadhaarReencryptionJobTest {
+
+    private static final String AADHAAR = "246813579024";
+
+    @Autowired
+    private AadhaarReencryptionJob job;
+
+    @Autowired
+    private MedicalReportService service;
+
+    @Autowired
+    private MedicalReportRepository repository;
+
+    @Autowired
+    private ReencryptionCheckpointRepository checkpoints;
+
+    @Autowired
+    private ExtractionJobRepository jobs;
+
+    @MockitoSpyBean
+    private AadhaarEncryptionService encryptionService;
+
+    @Test
+    void upgradesStoredCiphertextsAndResumesFromCheckpoint() throws Exception {
+        Long first = storeWithLegacyCiphertext("first.pdf");
+        checkpoints.deleteAll();
+
+        ReencryptionCheckpoint done = job.run();
+        assertNotNull(done.getCompletedAt());
+        assertTrue(done.getReencrypted() >= 1);
+        String patientId = repository.findById(first).orElseThrow().getPatientId();
+        assertFalse(encryptionService.needsReencryption(patientId));
+        assertEquals(AADHAAR, encryptionService.decrypt(patientId));
+
+        // A run interrupted after the first report picks up after it
+        Long second = storeWithLegacyCiphertext("second.pdf");
+        checkpoints.deleteAll();
+        ReencryptionCheckpoint partial = new ReencryptionCheckpoint(encryptionService.getActiveKeyId());
+        partial.advance(first, 0, 0);
+        checkpoints.save(partial);
+
+        ReencryptionCheckpoint resumed = job.run();
+        assertNotNull(resumed.getCompletedAt());
+        assertEquals(1, resumed.getReencrypted());
+        assertFalse(encryptionService.needsReencryption(repository.findById(second).orElseThrow().getPatientId()));
+    }
+
+    @Test
+    void reportDeletedBeforeItsChunkCommitsIsSkipped() throws Exception {
+        Long kept = storeWithLegacyCiphertext("kept.pdf");
+        Long deleted = storeWithLegacyCiphertext("deleted.pdf");
+        checkpoints.deleteAll();
+
+        // The chunk has been read; the first re-encryption deletes one of its reports before the commit
+        AtomicReference<Long> victim = new AtomicReference<>(deleted);
+        doAnswer(invocation -> {
+            Long id = victim.getAndSet(null);
+            if (id != null) {
+                service.deleteById(id);
+            }
+            return invocation.callRealMethod();
+        }).when(encryptionService).reencrypt(anyString());
+
+        ReencryptionCheckpoint done = job.run();
+        assertNull(victim.get());
+        assertNotNull(done.getCompletedAt());
+        assertFalse(repository.existsById(deleted));
+        String patientId = repository.findById(kept).orElseThrow().getPatientId();
+        assertFalse(encryptionService.needsReencryption(patientId));
+        assertEquals(AADHAAR, encryptionService.decrypt(patientId));
+    }
+
+    @Test
+    void completionWaitsForUnfinishedJobsUnderAnOlderKey() throws Exception {
+        ExtractionJob queued = new ExtractionJob(UUID.randomUUID().toString(), "diagnost");
+        queued.setSpoolPath("queued.pdf");
+        queued.setChecksum("0".repeat(64));
+        queued.setPatientId(LegacyCiphertexts.encrypt(AADHAAR, encryptionService.getEncodedKey()));
+        jobs.save(queued);
+        checkpoints.deleteAll();
+        try {
+            CompletableFuture<ReencryptionCheckpoint> run = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return job.run();
+                } catch (InterruptedException e) {
+                    throw new CompletionException(e);
+                }
+            });
+            Thread.sleep(500);
+            assertFalse(run.isDone());
+
+            ExtractionJob stored = jobs.findById(queued.getId()).orElseThrow();
+            stored.fail("Cancelled");
+            jobs.save(stored);
+
+            assertNotNull(run.get(30, TimeUnit.SECONDS).getCompletedAt());
+            assertNull(jobs.findById(queued.getId()).orElseThrow().getPatientId());
+        } finally {
+            jobs.deleteById(queued.getId());
+        }
+    }
+
+    private Long storeWithLegacyCiphertext(String name) throws Exception {
+        MedicalReport report = service.upload(new MockMultipartFile("file", name, "application/pdf",
+                Files.readAllBytes(Path.of("test.pdf"))), "diagnost", AADHAAR, "LAB", null);
+        MedicalReport stored = repository.findById(report.getId()).orElseThrow();
+        stored.setPatientId(LegacyCiphertexts.encrypt(AADHAAR, encryptionService.getEncodedKey()));
+        repository.save(stored);
+        return report.getId();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.ExtractionJob;
+import com.example.EHR.repository.ExtractionJobRepository;
+import com.example.EHR.repository.MedicalReportRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+class ExtractionJobServiceTest {
+
+    @Autowired
+    private ExtractionJobService jobService;
+
+    @MockitoSpyBean
+    private ExtractionJobRepository repository;
+
+    @Autowired
+    private MedicalReportRepository reportRepository;
+
+    @Autowired
+    private MedicalReportService reportService;
+
+    @Autowired
+    private AadhaarEncryptionService encryptionService;
+
+    private static MockMultipartFile samplePdf(String name) throws Exception {
+        return new MockMultipartFile("file", name, "application/pdf", Files.readAllBytes(Path.of("test.pdf")));
+    }
+
+    @Test
+    void submittedJobIsPersistedBeforeItRuns() throws Exception {
+        ExtractionJob job = jobService.submit(samplePdf("async.pdf"), "diagnost", "123456789012", "LAB", null);
+
+        ExtractionJob stored = repository.findById(job.getId()).orElseThrow();
+        assertNotEquals("123456789012", stored.getPatientId());
+        assertEquals("async.pdf", stored.getOriginalFileName());
+
+        ExtractionJob finished = jobService.completion(stored).get(30, TimeUnit.SECONDS);
+        assertEquals(ExtractionJob.Status.COMPLETED, finished.getStatus());
+        assertEquals(ExtractionJob.Status.COMPLETED, repository.findById(job.getId()).orElseThrow().getStatus());
+        assertFalse(Files.exists(Path.of(stored.getSpoolPath())));
+        assertEquals("9012", reportService.getById(finished.getReportId()).getAadhaarLast4());
+    }
+
+    @Test
+    void rejectsInvalidAadhaarWithoutQueueing() {
+        long before = repository.count();
+        assertThrows(IllegalArgumentException.class, () ->
+                jobService.submit(samplePdf("bad-id.pdf"), "diagnost", "12345", "LAB", null));
+        assertEquals(before, repository.count());
+    }
+
+    @Test
+    void jobsInterruptedByRestartAreResumed() throws Exception {
+        Path jobDir = Files.createDirectories(Path.of(System.getProperty("java.io.tmpdir"), "ehr-extraction-jobs"));
+        ExtractionJob interrupted = storedJob(jobDir, true);
+        ExtractionJob lost = storedJob(jobDir, false);
+
+        jobService.resumeUnfinished();
+
+        ExtractionJob resumed = jobService.completion(repository.findById(interrupted.getId()).orElseThrow())
+                .get(30, TimeUnit.SECONDS);
+        assertEquals(ExtractionJob.Status.COMPLETED, resumed.getStatus());
+        assertNotNull(reportService.getById(resumed.getReportId()));
+        assertFalse(Files.exists(Path.of(interrupted.getSpoolPath())));
+
+        ExtractionJob failed = repository.findById(lost.getId()).orElseThrow();
+        assertEquals(ExtractionJob.Status.FAILED, failed.getStatus());
+    }
+
+    @Test
+    void reportIsRolledBackWhenTheJobCannotBeMarkedComplete() throws Exception {
+        AtomicBoolean crash = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            ExtractionJob job = invocation.getArgument(0);
+            if (job.getStatus() == ExtractionJob.Status.COMPLETED && crash.getAndSet(false)) {
+                throw new IllegalStateException("Simulated crash before the job commit");
+            }
+            return invocation.callRealMethod();
+        }).when(repository).save(any(ExtractionJob.class));
+        long reportsBefore = reportRepository.count();
+
+        ExtractionJob job = jobService.submit(samplePdf("rollback.pdf"), "diagnost", "123456789012", "LAB", null);
+        ExtractionJob finished = jobService.completion(job).get(30, TimeUnit.SECONDS);
+
+        assertEquals(ExtractionJob.Status.FAILED, finished.getStatus());
+        assertEquals(reportsBefore, reportRepository.count());
+    }
+
+    // A job as a previous process left it: marked running, with or without its spooled file
+    private ExtractionJob storedJob(Path jobDir, boolean withFile) throws Exception {
+        ExtractionJob job = new ExtractionJob(UUID.randomUUID().toString(), "diagnost");
+        Path spool = jobDir.resolve(job.getId() + ".pdf");
+        if (withFile) {
+            Files.copy(Path.of("test.pdf"), spool);
+        }
+        job.setSpoolPath(spool.toString());
+        job.setChecksum(HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(Path.of("test.pdf")))));
+        job.setFileSize(Files.size(Path.of("test.pdf")));
+        job.setOriginalFileName("resumed.pdf");
+        job.setUploaderRole("diagnost");
+        job.setPatientId(encryptionService.encrypt("123456789012"));
+        job.setReportType("LAB");
+        job.markRunning();
+        return repository.save(job);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.EHR.service;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Builds Aadhaar ciphertexts in the format stored before ciphertexts carried a key id.
+ */
+final class LegacyCiphertexts {
+
+    private LegacyCiphertexts() {
+    }
+
+    // IV || ciphertext || tag under the given Base64 key
+    static String encrypt(String aadhaar, String encodedKey) throws GeneralSecurityException {
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(Base64.getDecoder().decode(encodedKey), "AES"),
+                new GCMParameterSpec(128, iv));
+        byte[] ct = cipher.doFinal(aadhaar.getBytes(StandardCharsets.US_ASCII));
+        byte[] out = new byte[iv.length + ct.length];
+        System.arraycopy(iv, 0, out, 0, iv.length);
+        System.arraycopy(ct, 0, out, iv.length, ct.length);
+        return Base64.getEncoder().encodeToString(out);
+    }
+}
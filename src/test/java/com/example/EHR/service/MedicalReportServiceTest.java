@@ -0,0 +1,254 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.BatchUploadResult;
+import com.example.EHR.model.CursorPage;
+import com.example.EHR.model.MedicalReport;
+import com.example.EHR.model.MedicalReportSummary;
+import com.example.EHR.model.OriginalFile;
+import com.example.EHR.model.ReportPage;
+import com.example.EHR.repository.ReportContentRepository;
+import com.example.EHR.repository.ReportFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class MedicalReportServiceTest {
+
+    @Autowired
+    private MedicalReportService service;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PatientListingCache listingCache;
+
+    @Autowired
+    private AadhaarEncryptionService encryptionService;
+
+    @Autowired
+    private ReportContentRepository contentRepository;
+
+    @Autowired
+    private PdfContentStore pdfStore;
+
+    private static MockMultipartFile samplePdf(String name) throws Exception {
+        return new MockMultipartFile("file", name, "application/pdf", Files.readAllBytes(Path.of("test.pdf")));
+    }
+
+    @Test
+    void uploadComputesChecksumAndPageCount() throws Exception {
+        MedicalReport saved = service.upload(samplePdf("report.pdf"), "diagnost", "123456789012", "LAB", null);
+
+        assertNotNull(saved.getId());
+        assertEquals(64, saved.getChecksum().length());
+        assertEquals(Files.size(Path.of("test.pdf")), saved.getFileSize());
+        assertEquals(1, saved.getPageCount());
+        assertEquals("9012", saved.getAadhaarLast4());
+    }
+
+    @Test
+    void identicalUploadsShareExtractedContent() throws Exception {
+        MedicalReport first = service.upload(samplePdf("first.pdf"), "diagnost", "123456789012", "LAB", null);
+        MedicalReport second = service.upload(samplePdf("second.pdf"), "diagnost", "987654321098", "LAB", null);
+
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(first.getChecksum(), second.getChecksum());
+        assertEquals(first.getContent().getId(), second.getContent().getId());
+        assertEquals("second.pdf", second.getFileName());
+    }
+
+    @Test
+    void originalPdfIsKeptInContentStore() throws Exception {
+        MedicalReport saved = service.upload(samplePdf("original.pdf"), "diagnost", "123456789012", "LAB", null);
+
+        OriginalFile file = service.findOriginalFile(saved.getId()).orElseThrow();
+        assertEquals(saved.getChecksum(), file.getChecksum());
+        assertEquals("original.pdf", file.getFileName());
+        assertArrayEquals(Files.readAllBytes(Path.of("test.pdf")), Files.readAllBytes(file.getPath()));
+    }
+
+    @Test
+    void pagesAreStoredAndReadByRange() throws Exception {
+        MedicalReport saved = service.upload(samplePdf("paged.pdf"), "diagnost", "123456789012", "LAB", null);
+
+        List<ReportPage> pages = service.getPages(saved.getId(), 1, 5);
+        assertEquals(1, pages.size());
+        assertEquals(1, pages.get(0).getPageNumber());
+        assertEquals(saved.getExtractedText(), pages.get(0).getText());
+        // The whole text is reassembled from the stored pages
+        assertEquals(saved.getExtractedText(), service.findContent(saved.getId()).orElseThrow().getExtractedText());
+        assertEquals(1, service.findPageCount(saved.getId()).orElseThrow());
+        assertTrue(service.getPages(saved.getId(), 2, 2).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> service.getPages(saved.getId(), 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> service.getPages(saved.getId(), 1, 1 + MedicalReportService.MAX_PAGE_RANGE));
+    }
+
+    @Test
+    void uploadRecordsStageMetrics() throws Exception {
+        List<String> stages = List.of("spool", "encryption", "store", "save");
+        long[] before = stages.stream().mapToLong(this::stageCount).toArray();
+
+        service.upload(samplePdf("metrics-a.pdf"), "diagnost", "123456789012", "METRICS", null);
+        service.upload(samplePdf("metrics-b.pdf"), "diagnost", "123456789012", "metrics", null);
+
+        for (int i = 0; i < stages.size(); i++) {
+            assertEquals(2, stageCount(stages.get(i)) - before[i], stages.get(i));
+        }
+        // Stage histograms are per stage and role only; reportType would multiply their bucket series
+        assertTrue(meterRegistry.find("ehr.upload.stage").tagKeys("reportType").timers().isEmpty());
+        assertEquals(2 * Files.size(Path.of("test.pdf")), meterRegistry.get("ehr.upload.bytes")
+                .tags("reportType", "METRICS").counter().count());
+        assertTrue(meterRegistry.get("ehr.upload.dedup.hits").tags("reportType", "METRICS").counter().count() >= 1);
+    }
+
+    private long stageCount(String stage) {
+        Timer timer = meterRegistry.find("ehr.upload.stage").tags("stage", stage, "role", "anonymous").timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    @Test
+    void rejectsNonPdfFiles() {
+        MockMultipartFile txt = new MockMultipartFile("file", "notes.txt", "text/plain", "hello".getBytes());
+        assertThrows(IllegalArgumentException.class, () ->
+            service.upload(txt, "diagnost", "123456789012", null, null));
+    }
+
+    @Test
+    void batchUploadReportsEachFileSeparately() throws Exception {
+        MockMultipartFile txt = new MockMultipartFile("files", "notes.txt", "text/plain", "hello".getBytes());
+        List<BatchUploadResult> results = service.uploadBatch(
+                List.of(samplePdf("a.pdf"), txt, samplePdf("b.pdf")), "diagnost",
+                List.of("123456789012"), "LAB", null);
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Only PDF files are allowed", results.get(1).getError());
+        assertTrue(results.get(2).isSuccess());
+        assertNotNull(results.get(2).getReport().getId());
+    }
+
+    @Test
+    void batchRowThatFailsToSaveLeavesNoContentOrFile() throws Exception {
+        // Bytes no other test uploads, under a file name too long for its column
+        MockMultipartFile bad = uniquePdf("x".repeat(300) + ".pdf");
+        String checksum = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bad.getBytes()));
+
+        List<BatchUploadResult> results = service.uploadBatch(List.of(samplePdf("fine.pdf"), bad), "diagnost",
+                List.of("123456789012"), "LAB", null);
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(contentRepository.findByChecksum(checksum).isEmpty());
+        assertTrue(pdfStore.find(checksum).isEmpty());
+    }
+
+    @Test
+    void keysetPaginationWalksNewestFirst() throws Exception {
+        String patient = "555555555555";
+        MedicalReport r1 = service.upload(samplePdf("p1.pdf"), "diagnost", patient, "IMAGING", null);
+        MedicalReport r2 = service.upload(samplePdf("p2.pdf"), "diagnost", patient, "IMAGING", null);
+        MedicalReport r3 = service.upload(samplePdf("p3.pdf"), "diagnost", patient, "IMAGING", null);
+
+        CursorPage<MedicalReportSummary> first = service.listByPatientId(patient, new ReportFilter(), null, 2);
+        assertEquals(List.of(r3.getId(), r2.getId()), first.getItems().stream().map(MedicalReportSummary::getId).toList());
+        assertNotNull(first.getNextCursor());
+
+        CursorPage<MedicalReportSummary> second = service.listByPatientId(patient, new ReportFilter(), first.getNextCursor(), 2);
+        assertEquals(List.of(r1.getId()), second.getItems().stream().map(MedicalReportSummary::getId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void cachedLookupsFollowUploadsAndDeletes() throws Exception {
+        String patient = "444444444444";
+        MedicalReport r1 = service.upload(samplePdf("c1.pdf"), "diagnost", patient, "LAB", null);
+        service.listByPatientId(patient, new ReportFilter(), null, 10);
+        service.getById(r1.getId());
+        assertTrue(entityManagerFactory.getCache().contains(MedicalReport.class, r1.getId()));
+
+        MedicalReport r2 = service.upload(samplePdf("c2.pdf"), "diagnost", patient, "LAB", null);
+        assertEquals(List.of(r2.getId(), r1.getId()), service.listByPatientId(patient, new ReportFilter(), null, 10)
+                .getItems().stream().map(MedicalReportSummary::getId).toList());
+        assertEquals("c1.pdf", service.getById(r1.getId()).getFileName());
+        assertEquals(r1.getExtractedText(), service.getById(r1.getId()).getExtractedText());
+
+        service.deleteById(r1.getId());
+        assertFalse(entityManagerFactory.getCache().contains(MedicalReport.class, r1.getId()));
+        assertThrows(IllegalArgumentException.class, () -> service.getById(r1.getId()));
+        assertEquals(List.of(r2.getId()), service.listByPatientId(patient, new ReportFilter(), null, 10)
+                .getItems().stream().map(MedicalReportSummary::getId).toList());
+    }
+
+    @Test
+    void uploadForOnePatientKeepsOtherPatientsListingsCached() throws Exception {
+        String patientA = "777777777777";
+        String patientB = "888888888888";
+        String hashA = encryptionService.hashAadhaar(patientA);
+        String hashB = encryptionService.hashAadhaar(patientB);
+        service.upload(samplePdf("a1.pdf"), "diagnost", patientA, "LAB", null);
+        MedicalReport b1 = service.upload(samplePdf("b1.pdf"), "diagnost", patientB, "LAB", null);
+        service.listByPatientId(patientA, new ReportFilter(), null, 10);
+        MedicalReportSummary listedB = service.listByPatientId(patientB, new ReportFilter(), null, 10).getItems().get(0);
+        assertEquals(1, listingCache.size(hashA));
+        assertEquals(1, listingCache.size(hashB));
+
+        MedicalReport a2 = service.upload(samplePdf("a2.pdf"), "diagnost", patientA, "LAB", null);
+        assertEquals(0, listingCache.size(hashA));
+        assertEquals(1, listingCache.size(hashB));
+        // Same instance: served from the cache, not read again
+        assertSame(listedB, service.listByPatientId(patientB, new ReportFilter(), null, 10).getItems().get(0));
+        assertEquals(a2.getId(), service.listByPatientId(patientA, new ReportFilter(), null, 10).getItems().get(0).getId());
+
+        service.deleteById(b1.getId());
+        assertEquals(0, listingCache.size(hashB));
+        assertEquals(1, listingCache.size(hashA));
+        assertTrue(service.listByPatientId(patientB, new ReportFilter(), null, 10).getItems().isEmpty());
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () ->
+            service.list(new ReportFilter(), "not-a-cursor", 10));
+    }
+
+    private static MockMultipartFile uniquePdf(String name) throws Exception {
+        try (PDDocument doc = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDPage page = new PDPage();
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                cs.beginText();
+                cs.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                cs.newLineAtOffset(50, 700);
+                cs.showText("Report " + UUID.randomUUID());
+                cs.endText();
+            }
+            doc.save(out);
+            return new MockMultipartFile("files", name, "application/pdf", out.toByteArray());
+        }
+    }
+}
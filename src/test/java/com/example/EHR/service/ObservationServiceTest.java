@@ -0,0 +1,84 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.MedicalReport;
+import com.example.EHR.model.Observation;
+import com.example.EHR.model.ReportObservation;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ObservationServiceTest {
+
+    @Autowired
+    private MedicalReportService reportService;
+
+    @Autowired
+    private ObservationService observationService;
+
+    @Test
+    void observationsArePersistedAtIngestAndQueryable() throws Exception {
+        String patient = "246813579024";
+        LocalDateTime reportDate = LocalDateTime.of(2024, 3, 1, 9, 0);
+        MedicalReport saved = reportService.upload(
+                labPdf("Vitals: BP 132/85 mmHg", "Fasting glucose: 6.0 mmol/L"),
+                "diagnost", patient, "LAB", reportDate);
+
+        List<ReportObservation> glucose = observationService.forPatient(patient, Observation.Type.GLUCOSE, null, null, 10);
+        assertEquals(1, glucose.size());
+        assertEquals(108.0, glucose.get(0).getValue());
+        assertEquals("mg/dL", glucose.get(0).getUnit());
+        assertEquals(reportDate, glucose.get(0).getObservedAt());
+        assertEquals(saved.getId(), glucose.get(0).getReport().getId());
+
+        List<ReportObservation> all = observationService.forPatient(patient, null, null, null, 10);
+        assertEquals(2, all.size());
+
+        List<ReportObservation> hypertensive = observationService.forAnalyte(
+                Observation.Type.BLOOD_PRESSURE, 130.0, null, reportDate, reportDate, 10);
+        assertTrue(hypertensive.stream().anyMatch(o -> o.getDiastolic() == 85));
+    }
+
+    @Test
+    void observationsWithoutReportDateAreDatedAtInsert() throws Exception {
+        String patient = "135792468013";
+        MedicalReport saved = reportService.upload(labPdf("Fasting glucose: 5.5 mmol/L"), "diagnost", patient, "LAB", null);
+
+        List<ReportObservation> glucose = observationService.forPatient(patient, Observation.Type.GLUCOSE, null, null, 10);
+        assertEquals(1, glucose.size());
+        assertNotNull(saved.getUploadedAt());
+        assertTrue(Duration.between(saved.getUploadedAt(), glucose.get(0).getObservedAt()).abs().toMillis() < 1000);
+    }
+
+    private static MockMultipartFile labPdf(String... lines) throws Exception {
+        try (PDDocument doc = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDPage page = new PDPage();
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                cs.beginText();
+                cs.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                cs.newLineAtOffset(50, 700);
+                for (String line : lines) {
+                    cs.showText(line);
+                    cs.newLineAtOffset(0, -16);
+                }
+                cs.endText();
+            }
+            doc.save(out);
+            return new MockMultipartFile("file", "lab.pdf", "application/pdf", out.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.EHR.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseMemoryBudgetTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private ParseMemoryBudget budget(Duration maxWait) {
+        return new ParseMemoryBudget(DataSize.ofMegabytes(10), maxWait, 10, registry);
+    }
+
+    private double reserved() {
+        return registry.get("ehr.parse.memory.reserved").gauge().value();
+    }
+
+    @Test
+    void reservationsAreReleasedOnClose() {
+        ParseMemoryBudget budget = budget(Duration.ofSeconds(1));
+        try (ParseMemoryBudget.Reservation reservation = budget.reserve(1024 * 1024)) {
+            assertEquals(3 * 1024 * 1024, reserved());
+            reservation.addPages(4);
+            assertEquals(4 * 1024 * 1024, reserved());
+        }
+        assertEquals(0, reserved());
+    }
+
+    @Test
+    void rejectsWhenBudgetStaysExhausted() {
+        ParseMemoryBudget budget = budget(Duration.ofMillis(50));
+        try (ParseMemoryBudget.Reservation held = budget.reserve(3 * 1024 * 1024)) {
+            ParseCapacityExceededException e = assertThrows(ParseCapacityExceededException.class,
+                    () -> budget.reserve(1024 * 1024));
+            assertEquals(1, e.getRetryAfterSeconds());
+            assertEquals(1, registry.get("ehr.parse.memory.rejected").counter().count());
+            assertEquals(9 * 1024 * 1024, reserved());
+        }
+    }
+
+    @Test
+    void waiterIsAdmittedOnceMemoryFrees() throws Exception {
+        ParseMemoryBudget budget = budget(Duration.ofSeconds(10));
+        ParseMemoryBudget.Reservation held = budget.reserve(3 * 1024 * 1024);
+
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> budget.reserve(2 * 1024 * 1024).close());
+        while (registry.get("ehr.parse.memory.queue").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+        assertFalse(waiter.isDone());
+        held.close();
+        waiter.get(5, TimeUnit.SECONDS);
+        assertEquals(0, reserved());
+    }
+
+    @Test
+    void runningParseTopsUpWhileQueuedUploadsWaitForParseSlots() throws Exception {
+        ParseMemoryBudget budget = budget(Duration.ofMillis(50));
+        PdfParseLimiter limiter = new PdfParseLimiter(1);
+        ParseMemoryBudget.Reservation running = budget.reserve(1024 * 1024);
+        PdfParseLimiter.Permit slot = limiter.acquire();
+
+        // Holds 6 MiB of the remaining 7 MiB while it waits for the only parse slot
+        CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> {
+            try (ParseMemoryBudget.Reservation memory = budget.reserve(2 * 1024 * 1024);
+                 PdfParseLimiter.Permit permit = limiter.acquire()) {
+                assertNotNull(memory);
+            }
+        });
+        while (reserved() < 9 * 1024 * 1024) {
+            Thread.sleep(5);
+        }
+
+        // 2 MiB of pages with 1 MiB free: goes over budget rather than wait for memory the queued upload holds
+        running.addPages(8);
+        assertEquals(11 * 1024 * 1024, reserved());
+        assertThrows(ParseCapacityExceededException.class, () -> budget.reserve(1024));
+        assertFalse(queued.isDone());
+
+        running.close();
+        slot.close();
+        queued.get(5, TimeUnit.SECONDS);
+        assertEquals(0, reserved());
+    }
+
+    @Test
+    void documentCopiesComeOnlyFromFreeMemory() {
+        ParseMemoryBudget budget = budget(Duration.ofMillis(50));
+        try (ParseMemoryBudget.Reservation reservation = budget.reserve(1024 * 1024)) {
+            assertEquals(2, reservation.tryAddDocumentCopies(5));
+            assertEquals(9 * 1024 * 1024, reserved());
+            assertEquals(0, reservation.tryAddDocumentCopies(1));
+        }
+        assertEquals(0, reserved());
+    }
+
+    @Test
+    void oversizedFileIsClampedToTheWholeBudget() {
+        ParseMemoryBudget budget = budget(Duration.ofMillis(50));
+        try (ParseMemoryBudget.Reservation huge = budget.reserve(50L * 1024 * 1024)) {
+            huge.addPages(100);
+            assertEquals(10 * 1024 * 1024, reserved());
+        }
+    }
+}
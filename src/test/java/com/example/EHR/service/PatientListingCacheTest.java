@@ -0,0 +1,110 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.MedicalReportSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.impl.copy.IdentityCopier;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Caching;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatientListingCacheTest {
+
+    private static final List<Object> KEY = List.of("LAB", 10);
+
+    private static List<MedicalReportSummary> rows(long id) {
+        return List.of(new MedicalReportSummary(id, "r.pdf", "r.pdf", 1L, "application/pdf", LocalDateTime.now(),
+                "diagnost", "LAB", null, 1, "9012"));
+    }
+
+    // A region configured like patientListings in ehcache.xml, holding at most the given number of patients
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static PatientListingCache cache(int maxPatients, int maxEntriesPerPatient) {
+        CacheConfigurationBuilder<String, PatientListingCache.Listings> config = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(String.class, PatientListingCache.Listings.class,
+                        ResourcePoolsBuilder.heap(maxPatients))
+                .withKeyCopier((Class) IdentityCopier.class)
+                .withValueCopier((Class) IdentityCopier.class);
+        return new PatientListingCache(Caching.getCachingProvider(EhcacheCachingProvider.class.getName())
+                .getCacheManager()
+                .createCache("listings-" + UUID.randomUUID(), Eh107Configuration.fromEhcacheCacheConfiguration(config)),
+                maxEntriesPerPatient);
+    }
+
+    @Test
+    void evictionDropsOnlyThatPatient() {
+        PatientListingCache cache = cache(10, 4);
+        cache.forPatient("a").put(KEY, rows(1));
+        cache.forPatient("b").put(KEY, rows(2));
+
+        cache.evict("a");
+
+        assertNull(cache.forPatient("a").get(KEY));
+        assertEquals(2L, cache.forPatient("b").get(KEY).get(0).getId());
+    }
+
+    @Test
+    void resultReadBeforeAnEvictionIsNeverServed() {
+        PatientListingCache cache = cache(10, 4);
+        PatientListingCache.Listings taken = cache.forPatient("a");
+
+        // A write for the patient commits while the read is still running
+        cache.evict("a");
+        taken.put(KEY, rows(1));
+
+        assertNull(cache.forPatient("a").get(KEY));
+        assertEquals(0, cache.size("a"));
+    }
+
+    @Test
+    void fullPatientDropsItsLeastRecentlyUsedListing() {
+        PatientListingCache cache = cache(10, 2);
+        List<Object> second = List.of("OTHER", 10);
+        cache.forPatient("a").put(KEY, rows(1));
+        cache.forPatient("a").put(second, rows(2));
+        cache.forPatient("a").get(KEY);
+
+        cache.forPatient("a").put(List.of("THIRD", 10), rows(3));
+
+        assertEquals(2, cache.size("a"));
+        assertNotNull(cache.forPatient("a").get(KEY));
+        assertNull(cache.forPatient("a").get(second));
+    }
+
+    @Test
+    void fullRegionMakesRoomForNewPatients() throws Exception {
+        PatientListingCache cache = cache(1, 4);
+        cache.forPatient("a").put(KEY, rows(1));
+        // Access times have millisecond resolution; make "a" the older one
+        Thread.sleep(20);
+
+        cache.forPatient("b").put(KEY, rows(2));
+
+        assertEquals(0, cache.size("a"));
+        assertEquals(1, cache.size("b"));
+        assertEquals(2L, cache.forPatient("b").get(KEY).get(0).getId());
+    }
+
+    @Test
+    void lookupsAreCountedByResult() {
+        PatientListingCache cache = cache(10, 4);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.forPatient("a").get(KEY);
+        cache.forPatient("a").put(KEY, rows(1));
+        cache.forPatient("a").get(KEY);
+        cache.forPatient("a").get(KEY);
+
+        assertEquals(2.0, registry.get("ehr.listings.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("ehr.listings.gets").tag("result", "miss").functionCounter().count());
+    }
+}
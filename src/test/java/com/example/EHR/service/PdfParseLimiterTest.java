@@ -0,0 +1,28 @@
+package com.example.EHR.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfParseLimiterTest {
+
+    @Test
+    void extraSlotsAreTakenOnlyWhenFree() {
+        PdfParseLimiter limiter = new PdfParseLimiter(3);
+        try (PdfParseLimiter.Permit parse = limiter.acquire();
+             PdfParseLimiter.Permit helpers = limiter.tryAcquire(5)) {
+            assertEquals(1, parse.getSlots());
+            assertEquals(2, helpers.getSlots());
+            assertEquals(0, limiter.tryAcquire(1).getSlots());
+
+            helpers.trim(1);
+            assertEquals(1, helpers.getSlots());
+            try (PdfParseLimiter.Permit freed = limiter.tryAcquire(2)) {
+                assertEquals(1, freed.getSlots());
+            }
+        }
+        try (PdfParseLimiter.Permit all = limiter.tryAcquire(3)) {
+            assertEquals(3, all.getSlots());
+        }
+    }
+}
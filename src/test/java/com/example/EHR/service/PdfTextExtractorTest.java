@@ -0,0 +1,153 @@
+package com.example.EHR.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the parallel page-range path produces exactly the text of a sequential strip.
+ */
+class PdfTextExtractorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PdfTextExtractor sequential = new PdfTextExtractor(false, 1, 1, 1);
+    private final PdfTextExtractor parallel = new PdfTextExtractor(true, 2, 3, 4);
+
+    @AfterEach
+    void shutdown() {
+        sequential.shutdown();
+        parallel.shutdown();
+    }
+
+    @Test
+    void parallelExtractionMatchesSequential() throws Exception {
+        File pdf = writeSamplePdf(tempDir.resolve("multi.pdf").toFile(), 37);
+
+        try (PDDocument doc = Loader.loadPDF(new RandomAccessReadBufferedFile(pdf))) {
+            String expected = sequential.extractText(doc, pdf);
+            String actual = parallel.extractText(doc, pdf);
+
+            assertTrue(expected.contains("Page 37 line 2"));
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void pageEndsSplitTextIntoPages() throws Exception {
+        File pdf = writeSamplePdf(tempDir.resolve("pages.pdf").toFile(), 9);
+
+        try (PDDocument doc = Loader.loadPDF(new RandomAccessReadBufferedFile(pdf))) {
+            StringWriter sequentialText = new StringWriter();
+            int[] sequentialEnds = sequential.extractText(doc, pdf, sequentialText);
+            StringWriter parallelText = new StringWriter();
+            int[] parallelEnds = parallel.extractText(doc, pdf, parallelText);
+
+            assertArrayEquals(sequentialEnds, parallelEnds);
+            assertEquals(9, sequentialEnds.length);
+            assertEquals(sequentialText.toString().length(), sequentialEnds[8]);
+            String page4 = sequentialText.toString().substring(sequentialEnds[2], sequentialEnds[3]);
+            assertTrue(page4.contains("Page 4 line 1"));
+            assertFalse(page4.contains("Page 3") || page4.contains("Page 5"));
+        }
+    }
+
+    @Test
+    void pagesWithoutContentStreamKeepTheirPlace() throws Exception {
+        // Blank first and last pages, and pages 4-6 (a whole parallel range of 3) blank
+        File pdf = writeSamplePdf(tempDir.resolve("blank.pdf").toFile(), 12, Set.of(1, 4, 5, 6, 12));
+
+        try (PDDocument doc = Loader.loadPDF(new RandomAccessReadBufferedFile(pdf))) {
+            for (PdfTextExtractor extractor : List.of(sequential, parallel)) {
+                StringWriter out = new StringWriter();
+                int[] ends = extractor.extractText(doc, pdf, out);
+                String text = out.toString();
+
+                assertEquals(12, ends.length);
+                assertEquals(0, ends[0]);
+                assertEquals(ends[2], ends[3]);
+                assertEquals(ends[2], ends[5]);
+                assertEquals(ends[10], ends[11]);
+                assertEquals(text.length(), ends[11]);
+                String page7 = text.substring(ends[5], ends[6]);
+                assertTrue(page7.contains("Page 7 line 1"));
+                assertFalse(page7.contains("Page 3") || page7.contains("Page 8"));
+            }
+        }
+    }
+
+    @Test
+    void workersAreCappedByTheCaller() throws Exception {
+        File pdf = writeSamplePdf(tempDir.resolve("capped.pdf").toFile(), 37);
+        assertEquals(4, parallel.rangeWorkers(37));
+        assertEquals(1, parallel.rangeWorkers(1));
+        assertEquals(1, sequential.rangeWorkers(37));
+
+        try (PDDocument doc = Loader.loadPDF(new RandomAccessReadBufferedFile(pdf))) {
+            StringWriter expected = new StringWriter();
+            int[] expectedEnds = sequential.extractText(doc, pdf, expected);
+            for (int workers = 1; workers <= 2; workers++) {
+                StringWriter actual = new StringWriter();
+                assertArrayEquals(expectedEnds, parallel.extractText(doc, pdf, actual, workers));
+                assertEquals(expected.toString(), actual.toString());
+            }
+        }
+    }
+
+    @Test
+    void smallDocumentsStaySequential() throws Exception {
+        File pdf = writeSamplePdf(tempDir.resolve("single.pdf").toFile(), 1);
+        PdfTextExtractor thresholded = new PdfTextExtractor(true, 10, 1, 4);
+        try (PDDocument doc = Loader.loadPDF(new RandomAccessReadBufferedFile(pdf))) {
+            assertEquals(sequential.extractText(doc, pdf), thresholded.extractText(doc, pdf));
+        } finally {
+            thresholded.shutdown();
+        }
+    }
+
+    private static File writeSamplePdf(File target, int pages) throws Exception {
+        return writeSamplePdf(target, pages, Set.of());
+    }
+
+    // Pages listed in blankPages get no content stream at all
+    private static File writeSamplePdf(File target, int pages, Set<Integer> blankPages) throws Exception {
+        try (PDDocument doc = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int p = 1; p <= pages; p++) {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                if (blankPages.contains(p)) {
+                    continue;
+                }
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(font, 12);
+                    cs.newLineAtOffset(72, 720);
+                    for (int line = 1; line <= 5; line++) {
+                        cs.showText("Page " + p + " line " + line + " Hemoglobin 13." + line + " g/dL");
+                        cs.newLineAtOffset(0, -16);
+                    }
+                    cs.endText();
+                }
+            }
+            doc.save(target);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.MedicalReport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ReportExportServiceTest {
+
+    @Autowired
+    private ReportExportService exportService;
+
+    @Autowired
+    private MedicalReportService reportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void exportsOneJsonObjectPerLine() throws Exception {
+        MockMultipartFile pdf = new MockMultipartFile("file", "export.pdf", "application/pdf",
+                Files.readAllBytes(Path.of("test.pdf")));
+        MedicalReport saved = reportService.upload(pdf, "diagnost", "123456789012", "LAB", null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = exportService.exportNdjson(saved.getUploadedAt().minusSeconds(1), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(written, lines.length);
+        assertTrue(written >= 1);
+        boolean found = false;
+        for (String line : lines) {
+            JsonNode node = objectMapper.readTree(line);
+            if (node.get("id").asLong() == saved.getId()) {
+                assertEquals("export.pdf", node.get("fileName").asText());
+                assertEquals(saved.getChecksum(), node.get("checksum").asText());
+                found = true;
+            }
+        }
+        assertTrue(found);
+    }
+}
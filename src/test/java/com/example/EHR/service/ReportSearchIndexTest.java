@@ -0,0 +1,132 @@
+package com.example.EHR.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportSearchIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static ReportSearchIndex sampleIndex() {
+        ReportSearchIndex index = new ReportSearchIndex();
+        index.add(1, 11, "alice", "HbA1c 7.2% fasting glucose high, follow up in clinic");
+        index.add(2, 12, "bob", "X-ray shows hairline fracture of left radius");
+        index.add(3, 13, "alice", "No fracture. Glucose normal. HbA1c 5.4%");
+        index.add(4, 14, "carol", "left radius fracture fracture fracture healing well");
+        return index;
+    }
+
+    private static List<Long> ids(ReportSearchIndex.Result result) {
+        return result.getHits().stream().map(ReportSearchIndex.Hit::getReportId).collect(Collectors.toList());
+    }
+
+    @Test
+    void termsAreAndedAndCaseInsensitive() {
+        ReportSearchIndex index = sampleIndex();
+        assertEquals(Set.of(1L, 3L), Set.copyOf(ids(index.search("hba1c glucose", null, 10))));
+        assertEquals(2, index.search("HBA1C AND Glucose", null, 10).getTotalHits());
+        assertEquals(0, index.search("hba1c radius", null, 10).getTotalHits());
+    }
+
+    @Test
+    void supportsOrNotAndPhrases() {
+        ReportSearchIndex index = sampleIndex();
+        assertEquals(3, index.search("fracture", null, 10).getTotalHits());
+        assertEquals(List.of(4L, 2L), ids(index.search("fracture -glucose", null, 10)));
+        assertEquals(List.of(2L), ids(index.search("\"hairline fracture\"", null, 10)));
+        assertEquals(2, index.search("\"left radius\"", null, 10).getTotalHits());
+        assertEquals(0, index.search("\"radius left\"", null, 10).getTotalHits());
+        assertEquals(4, index.search("glucose OR (radius NOT hba1c)", null, 10).getTotalHits());
+        // x-ray tokenizes to the phrase "x ray"
+        assertEquals(List.of(2L), ids(index.search("x-ray", null, 10)));
+    }
+
+    @Test
+    void ranksByTermFrequencyAndFiltersByPatient() {
+        ReportSearchIndex index = sampleIndex();
+        assertEquals(4L, ids(index.search("fracture", null, 10)).get(0));
+        assertEquals(List.of(3L), ids(index.search("fracture", "alice", 10)));
+        assertEquals(1, index.search("fracture", null, 1).getHits().size());
+    }
+
+    @Test
+    void patientScopedQueriesMatchOnlyThatPatientsReports() throws Exception {
+        ReportSearchIndex index = sampleIndex();
+        index.add(5, 15, "alice", "left radius fracture, glucose normal");
+        Set<Long> alice = Set.of(1L, 3L, 5L);
+        for (String query : List.of("fracture", "glucose fracture", "fracture OR hba1c", "glucose -fracture",
+                "\"radius fracture\"")) {
+            Set<Long> expected = ids(index.search(query, null, 10)).stream().filter(alice::contains)
+                    .collect(Collectors.toSet());
+            assertEquals(expected, Set.copyOf(ids(index.search(query, "alice", 10))));
+        }
+        assertTrue(index.search("fracture", "dave", 10).getHits().isEmpty());
+
+        index.remove(5);
+        Path snapshot = tempDir.resolve("scoped.idx");
+        index.writeSnapshot(snapshot);
+        ReportSearchIndex restored = new ReportSearchIndex();
+        restored.loadSnapshot(snapshot);
+        assertEquals(List.of(3L), ids(restored.search("fracture", "alice", 10)));
+        assertEquals(List.of(2L), ids(restored.search("radius", "bob", 10)));
+    }
+
+    @Test
+    void rejectsQueriesWithoutPositiveTerms() {
+        ReportSearchIndex index = sampleIndex();
+        assertThrows(IllegalArgumentException.class, () -> index.search("-fracture", null, 10));
+        assertThrows(IllegalArgumentException.class, () -> index.search("\"unterminated", null, 10));
+        assertThrows(IllegalArgumentException.class, () -> index.search("   ", null, 10));
+    }
+
+    @Test
+    void removedReportsDisappearAndSnapshotRoundTrips() throws Exception {
+        ReportSearchIndex index = sampleIndex();
+        assertTrue(index.remove(4));
+        assertEquals(Set.of(2L, 3L), Set.copyOf(ids(index.search("fracture", null, 10))));
+
+        Path snapshot = tempDir.resolve("reports.idx");
+        index.writeSnapshot(snapshot);
+        ReportSearchIndex restored = new ReportSearchIndex();
+        restored.loadSnapshot(snapshot);
+
+        assertArrayEquals(new long[]{1, 2, 3}, restored.reportIds());
+        assertTrue(restored.matches(2, 12, "bob"));
+        assertFalse(restored.matches(2, 99, "bob"));
+        assertEquals(Set.copyOf(ids(index.search("fracture OR glucose", null, 10))),
+                Set.copyOf(ids(restored.search("fracture OR glucose", null, 10))));
+        assertEquals(List.of(2L), ids(restored.search("\"hairline fracture\"", null, 10)));
+    }
+
+    @Test
+    void hitsNameThePagesTheirTermsOccurOn() throws Exception {
+        String[] pages = {"Fasting glucose 110 mg/dL\n", "", "Chest X-ray: no fracture\n", "Repeat glucose in 3 months"};
+        StringBuilder text = new StringBuilder();
+        int[] pageEnds = new int[pages.length];
+        for (int i = 0; i < pages.length; i++) {
+            text.append(pages[i]);
+            pageEnds[i] = text.length();
+        }
+        ReportSearchIndex index = new ReportSearchIndex();
+        index.add(1, 11, "alice", text.toString(), pageEnds);
+        index.add(2, 12, "bob", "glucose without page information");
+
+        assertArrayEquals(new int[]{1, 4}, index.search("glucose", "alice", 10).getHits().get(0).getPages());
+        assertArrayEquals(new int[]{3}, index.search("fracture", null, 10).getHits().get(0).getPages());
+        assertArrayEquals(new int[0], index.search("glucose", "bob", 10).getHits().get(0).getPages());
+
+        Path snapshot = tempDir.resolve("pages.idx");
+        index.writeSnapshot(snapshot);
+        ReportSearchIndex restored = new ReportSearchIndex();
+        restored.loadSnapshot(snapshot);
+        assertArrayEquals(new int[]{1, 3, 4}, restored.search("glucose OR x", "alice", 10).getHits().get(0).getPages());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.EHR.service;
+
+import com.example.EHR.model.Observation;
+import com.example.EHR.model.TrendStats;
+import com.example.EHR.model.VitalsTrend;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VitalsTimeSeriesStoreTest {
+
+    private static final LocalDateTime JAN_1 = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final VitalsTimeSeriesStore store = new VitalsTimeSeriesStore(null, null);
+
+    // One observation per report and day
+    private void glucose(int day, double value, long reportId) {
+        glucose(day, value, reportId, reportId * 10_000 + day);
+    }
+
+    private void glucose(int day, double value, long reportId, long observationId) {
+        store.add("patient", Observation.Type.GLUCOSE,
+                JAN_1.plusDays(day).toInstant(ZoneOffset.UTC).toEpochMilli(), value, reportId, observationId);
+    }
+
+    @Test
+    void aggregatesOverWindowAndBuckets() {
+        // Inserted out of order; the series keeps time order
+        glucose(20, 130, 3);
+        glucose(0, 100, 1);
+        glucose(10, 120, 2);
+        glucose(35, 90, 4);
+
+        VitalsTrend trend = store.trend("patient", Observation.Type.GLUCOSE, JAN_1, null, Duration.ofDays(30));
+        TrendStats overall = trend.getOverall();
+        assertEquals(4, overall.getCount());
+        assertEquals(90.0, overall.getMin());
+        assertEquals(130.0, overall.getMax());
+        assertEquals(110.0, overall.getAvg());
+        assertEquals(90.0, overall.getLast());
+        assertEquals(JAN_1.plusDays(35), overall.getLastAt());
+
+        assertEquals(2, trend.getBuckets().size());
+        assertEquals(3, trend.getBuckets().get(0).getCount());
+        assertEquals(130.0, trend.getBuckets().get(0).getLast());
+        assertEquals(1, trend.getBuckets().get(1).getCount());
+        assertEquals(JAN_1.plusDays(30), trend.getBuckets().get(1).getStart());
+    }
+
+    @Test
+    void windowBoundsAreInclusiveAndDuplicatesIgnored() {
+        glucose(0, 100, 1);
+        glucose(10, 120, 2);
+        glucose(10, 120, 2);
+        glucose(20, 130, 3);
+
+        TrendStats stats = store.trend("patient", Observation.Type.GLUCOSE, JAN_1.plusDays(10), JAN_1.plusDays(20), null)
+                .getOverall();
+        assertEquals(2, stats.getCount());
+        assertEquals(125.0, stats.getAvg());
+    }
+
+    @Test
+    void removingAReportDropsItsPoints() {
+        glucose(0, 100, 1);
+        glucose(10, 120, 2);
+        store.removeReport("patient", 2);
+
+        TrendStats stats = store.trend("patient", Observation.Type.GLUCOSE, null, null, null).getOverall();
+        assertEquals(1, stats.getCount());
+        assertEquals(100.0, stats.getLast());
+        assertEquals(0, store.trend("other", Observation.Type.GLUCOSE, null, null, null).getOverall().getCount());
+        assertNull(store.trend("patient", Observation.Type.HBA1C, null, null, null).getOverall().getAvg());
+    }
+
+    @Test
+    void equalReadingsOfOneReportAreAllKept() {
+        glucose(0, 100, 1, 11);
+        glucose(0, 100, 1, 12);
+
+        assertEquals(2, store.trend("patient", Observation.Type.GLUCOSE, null, null, null).getOverall().getCount());
+    }
+
+    @Test
+    void reportDeletedWhileRebuildingIsNotAddedBack() {
+        store.beginRebuild();
+        glucose(0, 100, 1);
+        // Report 2 is deleted after the rebuild read its row but before the row is added
+        store.removeReport("patient", 2);
+        glucose(10, 120, 2);
+        store.finishRebuild();
+
+        TrendStats stats = store.trend("patient", Observation.Type.GLUCOSE, null, null, null).getOverall();
+        assertEquals(1, stats.getCount());
+        assertEquals(100.0, stats.getLast());
+    }
+
+    @Test
+    void rejectsTooManyBuckets() {
+        glucose(0, 100, 1);
+        glucose(3000, 100, 2);
+        assertThrows(IllegalArgumentException.class,
+                () -> store.trend("patient", Observation.Type.GLUCOSE, null, null, Duration.ofDays(1)));
+    }
+}
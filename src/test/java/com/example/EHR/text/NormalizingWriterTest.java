@@ -0,0 +1,40 @@
+package com.example.EHR.text;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NormalizingWriterTest {
+
+    @Test
+    void normalizesWhileWriting() throws Exception {
+        NormalizingWriter writer = new NormalizingWriter(true, 0);
+        writer.write("\r\n  BP:\t120/80 \u2013 stable   \n");
+        writer.write("Glucose \u2212 5.6\t\t\n\n");
+
+        assertEquals("\r\n  BP:\t120/80 \u2013 stable   \nGlucose \u2212 5.6\t\t\n\n", writer.getRawText());
+        assertEquals("BP: 120/80 - stable \nGlucose - 5.6", writer.getNormalizedText());
+    }
+
+    @Test
+    void chunkBoundariesDoNotAffectResult() {
+        String text = "  Hb 13.2 g/dL   \t \r\nTemp  37.1 \u2014 ok  \t ";
+        for (int chunk = 1; chunk <= text.length(); chunk++) {
+            NormalizingWriter writer = new NormalizingWriter(false, 16);
+            for (int i = 0; i < text.length(); i += chunk) {
+                char[] buf = text.substring(i, Math.min(text.length(), i + chunk)).toCharArray();
+                writer.write(buf, 0, buf.length);
+            }
+            assertEquals(TextNormalizer.normalize(text), writer.getNormalizedText());
+        }
+        assertEquals("Hb 13.2 g/dL \nTemp 37.1 - ok", TextNormalizer.normalize(text));
+    }
+
+    @Test
+    void rawTextIsOptional() throws Exception {
+        NormalizingWriter writer = new NormalizingWriter(false, 16);
+        writer.write("x");
+        assertEquals("x", writer.getNormalizedText());
+        assertThrows(IllegalStateException.class, writer::getRawText);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.EHR.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextCodecTest {
+
+    private static String reportText(int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("Line ").append(i).append(": BP 120/80 mmHg, HbA1c 5.").append(i % 10)
+                    .append("%, temp 37.").append(i % 7).append(" \u00B0C \u2013 review\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void roundTripsShortAndEmptyText() {
+        assertEquals("", TextCodec.decode(TextCodec.encode("")));
+        assertEquals("HbA1c 7.2% \u2013 37 \u00B0C", TextCodec.decode(TextCodec.encode("HbA1c 7.2% \u2013 37 \u00B0C")));
+    }
+
+    @Test
+    void compressesLongText() {
+        String text = reportText(20_000);
+        byte[] encoded = TextCodec.encode(text);
+        assertTrue(encoded.length * 4 < text.length(), "expected at least 4x reduction, got " + encoded.length);
+        assertEquals(text, TextCodec.decode(encoded));
+    }
+
+    @Test
+    void rejectsCorruptData() {
+        byte[] encoded = TextCodec.encode(reportText(100));
+        assertThrows(IllegalArgumentException.class, () -> TextCodec.decode(Arrays.copyOf(encoded, encoded.length / 2)));
+        assertThrows(IllegalArgumentException.class, () -> TextCodec.decode(new byte[2]));
+        encoded[0] = 9;
+        assertThrows(IllegalArgumentException.class, () -> TextCodec.decode(encoded));
+    }
+}